@@ -0,0 +1,99 @@
+package com.sheshape.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schema that Hibernate's update can't express: partial and GIN indexes, id
+ * sequences moved past rows written while the tables still used IDENTITY, and
+ * list columns converted from comma-joined text to arrays.
+ * Every statement is idempotent and runs on each start, but only against
+ * Postgres; other databases (H2 in tests) keep the plain Hibernate schema.
+ */
+@Component
+public class PostgresSchema {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresSchema.class);
+
+    public static final List<String> STATEMENTS = List.of(
+            // Only the in-stock slice of the catalog, for the InStockIndex rebuild and stock listings
+            "CREATE INDEX IF NOT EXISTS idx_products_in_stock ON products (is_active, inventory_count) "
+                    + "WHERE inventory_count > 0",
+            // At most one main image per product. Older code could flag several, so keep
+            // the first by position before the index is built.
+            "UPDATE product_images SET is_main = false WHERE is_main AND id NOT IN ("
+                    + "SELECT DISTINCT ON (product_id) id FROM product_images WHERE is_main "
+                    + "ORDER BY product_id, position, id)",
+            "CREATE UNIQUE INDEX IF NOT EXISTS uk_product_images_main ON product_images (product_id) "
+                    + "WHERE is_main",
+            // Containment (@>) and overlap (&&) filters for trainer matching
+            "CREATE INDEX IF NOT EXISTS idx_fitness_profiles_secondary_goals "
+                    + "ON fitness_profiles USING GIN (secondary_goals)",
+            "CREATE INDEX IF NOT EXISTS idx_fitness_profiles_preferred_activity_types "
+                    + "ON fitness_profiles USING GIN (preferred_activity_types)",
+            "CREATE INDEX IF NOT EXISTS idx_fitness_profiles_preferred_workout_days "
+                    + "ON fitness_profiles USING GIN (preferred_workout_days)",
+            "CREATE INDEX IF NOT EXISTS idx_health_information_dietary_restrictions "
+                    + "ON health_information USING GIN (dietary_restrictions)");
+
+    // Columns that held comma-joined lists, by table; now varchar arrays
+    public static final Map<String, List<String>> ARRAY_COLUMNS = Map.of(
+            "fitness_profiles", List.of("secondary_goals", "preferred_activity_types",
+                    "preferred_workout_days", "preferred_workout_times"),
+            "health_information", List.of("dietary_restrictions", "health_conditions", "medications"));
+
+    // Tables whose ids come from a pooled "<table>_seq" sequence
+    public static final List<String> SEQUENCE_TABLES = List.of(
+            "products", "product_images", "gym_sessions", "user_gym_programs", "user_nutrition_plans",
+            "profiles", "physical_attributes", "fitness_profiles", "health_information", "user_preferences");
+
+    // The entities' allocationSize; a pooled block ends at the sequence value
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Depends on the EntityManagerFactory so Hibernate has created the tables first
+    public PostgresSchema(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void apply() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            logger.info("Skipping Postgres-only schema changes on {}", database);
+            return;
+        }
+        // Before the indexes: GIN needs the array type
+        ARRAY_COLUMNS.forEach((table, columns) ->
+                columns.forEach(column -> jdbcTemplate.execute(toArrayColumn(table, column))));
+        STATEMENTS.forEach(jdbcTemplate::execute);
+        SEQUENCE_TABLES.forEach(table -> jdbcTemplate.execute(alignSequence(table)));
+    }
+
+    // Hibernate's update leaves an existing varchar column alone, so convert it once here
+    private static String toArrayColumn(String table, String column) {
+        return "DO $$ BEGIN "
+                + "IF (SELECT data_type FROM information_schema.columns WHERE table_schema = current_schema() "
+                + "AND table_name = '" + table + "' AND column_name = '" + column + "') = 'character varying' THEN "
+                + "ALTER TABLE " + table + " ALTER COLUMN " + column + " TYPE varchar(255)[] "
+                + "USING string_to_array(NULLIF(" + column + ", ''), ','); "
+                + "END IF; END $$";
+    }
+
+    // Only ever moves the sequence forward: other nodes may hold blocks below its current value
+    private static String alignSequence(String table) {
+        String sequence = table + "_seq";
+        return "SELECT setval('" + sequence + "', GREATEST((SELECT last_value FROM " + sequence + "), "
+                + "(SELECT COALESCE(max(id), 0) FROM " + table + ") + " + ID_ALLOCATION_SIZE + "))";
+    }
+}
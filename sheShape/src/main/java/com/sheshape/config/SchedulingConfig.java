@@ -0,0 +1,41 @@
+package com.sheshape.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    public static final String BACKGROUND_SCHEDULER = "backgroundJobScheduler";
+
+    /**
+     * Runs every {@code @Scheduled} job that doesn't name a scheduler: the short,
+     * frequent ones such as the token denylist sync and the account version refresh,
+     * which must keep their intervals.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${scheduling.pool-size:2}") int poolSize) {
+        return scheduler("scheduling-", poolSize);
+    }
+
+    /**
+     * Long-running jobs (enrollment expiry, co-purchase recompute), kept apart so a
+     * slow run can't delay the default scheduler's jobs.
+     */
+    @Bean(BACKGROUND_SCHEDULER)
+    public ThreadPoolTaskScheduler backgroundJobScheduler(@Value("${scheduling.background-pool-size:2}") int poolSize) {
+        return scheduler("background-job-", poolSize);
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(String threadNamePrefix, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+}
@@ -1,9 +1,15 @@
 package com.sheshape.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sheshape.security.BCryptCostPasswordEncoder;
 import com.sheshape.security.JwtAuthenticationFilter;
 import com.sheshape.security.JwtAuthorizationFilter;
 import com.sheshape.security.JwtUtil;
+import com.sheshape.security.LoginExecutor;
+import com.sheshape.security.TimedPasswordEncoder;
 import com.sheshape.service.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,14 +20,18 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -31,18 +41,24 @@ public class SecurityConfig {
     private final UserDetailsServiceImpl userDetailsService;
     private final JwtAuthorizationFilter jwtAuthorizationFilter;
     private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    private final LoginExecutor loginExecutor;
 
-    public SecurityConfig(UserDetailsServiceImpl userDetailsService, JwtAuthorizationFilter jwtAuthorizationFilter,JwtUtil jwtUtil) {
+    public SecurityConfig(UserDetailsServiceImpl userDetailsService, JwtAuthorizationFilter jwtAuthorizationFilter,JwtUtil jwtUtil,
+                          ObjectMapper objectMapper, LoginExecutor loginExecutor) {
         this.userDetailsService = userDetailsService;
         this.jwtAuthorizationFilter = jwtAuthorizationFilter;
         this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+        this.loginExecutor = loginExecutor;
 
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager) throws Exception {
         // Configure JWT filter
-        JwtAuthenticationFilter jwtAuthenticationFilter = new JwtAuthenticationFilter(authenticationManager, jwtUtil);
+        JwtAuthenticationFilter jwtAuthenticationFilter = new JwtAuthenticationFilter(
+                authenticationManager, jwtUtil, objectMapper, loginExecutor);
         jwtAuthenticationFilter.setFilterProcessesUrl("/api/auth/login");
 
         return http
@@ -57,6 +73,10 @@ public class SecurityConfig {
                         
                         // Admin endpoints
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+
+                        // Actuator (loggers can change log levels at runtime)
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         
                         // Trainer endpoints
                         .requestMatchers("/api/gym/programs/new").hasRole("TRAINER")
@@ -79,17 +99,31 @@ public class SecurityConfig {
     }
 
     @Bean
-    public AuthenticationManager authManager(HttpSecurity http) throws Exception {
+    public AuthenticationManager authManager(HttpSecurity http, PasswordEncoder passwordEncoder) throws Exception {
         return http.getSharedObject(AuthenticationManagerBuilder.class)
                 .userDetailsService(userDetailsService)
-                .passwordEncoder(passwordEncoder())
+                .passwordEncoder(passwordEncoder)
+                // Re-hashes on successful login whenever passwordEncoder.upgradeEncoding says so
+                .userDetailsPasswordManager(userDetailsService)
                 .and()
                 .build();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${security.password.encoder:bcrypt}") String encoderId,
+            @Value("${security.password.bcrypt-strength:10}") int bcryptStrength) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptCostPasswordEncoder(bcryptStrength));
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        // New hashes are written as {encoderId}...; stored hashes keep working and are
+        // migrated on the next login, including legacy ones without an {id} prefix
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encoderId, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(bcryptStrength));
+
+        return new TimedPasswordEncoder(delegating, meterRegistry);
     }
 
     @Bean
@@ -97,7 +131,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:3000"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "If-Match"));
+        configuration.setExposedHeaders(List.of("ETag"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -1,6 +1,7 @@
 package com.sheshape.controller;
 
 import com.sheshape.dto.BlogPostDto;
+import com.sheshape.dto.SearchPage;
 import com.sheshape.service.BlogService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
@@ -57,7 +58,8 @@ public class BlogController {
     
     @GetMapping("/posts/{id}")
     public ResponseEntity<BlogPostDto> getPostById(@PathVariable Long id) {
-        return ResponseEntity.ok(blogService.getPostById(id));
+        BlogPostDto post = blogService.getPostById(id);
+        return ETags.ok(post, post.getVersion());
     }
     
     @GetMapping("/author/{authorId}/posts")
@@ -82,19 +84,16 @@ public class BlogController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<Page<BlogPostDto>> searchPosts(
+    public ResponseEntity<SearchPage<BlogPostDto>> searchPosts(
             @RequestParam String keyword,
+            @RequestParam(required = false) String category,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "publishedAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "10") int size) {
         
-        Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? 
-                Sort.Direction.ASC : Sort.Direction.DESC;
-        
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+        // Results are ranked by relevance, so there is no sort parameter
+        Pageable pageable = PageRequest.of(page, size);
         
-        return ResponseEntity.ok(blogService.searchPosts(keyword, pageable));
+        return ResponseEntity.ok(blogService.searchPosts(keyword, category, pageable));
     }
     
     @PostMapping("/posts")
@@ -108,8 +107,14 @@ public class BlogController {
     @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER', 'NUTRITIONIST')")
     public ResponseEntity<BlogPostDto> updatePost(
             @PathVariable Long id, 
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody BlogPostDto blogPostDto) {
-        return ResponseEntity.ok(blogService.updatePost(id, blogPostDto));
+        Long expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (expectedVersion != null) {
+            blogPostDto.setVersion(expectedVersion);
+        }
+        BlogPostDto post = blogService.updatePost(id, blogPostDto);
+        return ETags.ok(post, post.getVersion());
     }
     
     @PutMapping("/posts/{id}/publish")
@@ -0,0 +1,42 @@
+package com.sheshape.controller;
+
+import com.sheshape.exception.BadRequestException;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * ETag / If-Match handling for versioned resources. The ETag is the entity's
+ * {@code @Version}, so a client echoing it in If-Match gets a 412 instead of
+ * silently overwriting someone else's change.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /** The version named by an If-Match header, or null when absent or {@code *}. */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+
+    static <T> ResponseEntity<T> ok(T body, Long version) {
+        if (version == null) {
+            return ResponseEntity.ok(body);
+        }
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(version))
+                .body(body);
+    }
+}
@@ -1,17 +1,26 @@
 package com.sheshape.controller;
 
+import com.sheshape.dto.ClientMatchDto;
+import com.sheshape.dto.CursorPage;
 import com.sheshape.dto.GymProgramDto;
 import com.sheshape.dto.GymSessionDto;
+import com.sheshape.dto.ProgramEnrollmentDto;
+import com.sheshape.dto.RecommendationDto;
 import com.sheshape.dto.UserGymProgramDto;
 import com.sheshape.service.GymProgramService;
 import com.sheshape.service.UserService;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/gym")
@@ -26,19 +35,24 @@ public class GymProgramController {
     }
 
     @GetMapping("/programs")
-    public ResponseEntity<List<GymProgramDto>> getAllActivePrograms() {
-        return ResponseEntity.ok(gymProgramService.getActiveGymPrograms());
+    public ResponseEntity<CursorPage<GymProgramDto>> getAllActivePrograms(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(gymProgramService.getActiveGymPrograms(cursor, size));
     }
     
     @GetMapping("/programs/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<GymProgramDto>> getAllPrograms() {
-        return ResponseEntity.ok(gymProgramService.getAllGymPrograms());
+    public ResponseEntity<CursorPage<GymProgramDto>> getAllPrograms(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(gymProgramService.getAllGymPrograms(cursor, size));
     }
     
     @GetMapping("/programs/{id}")
     public ResponseEntity<GymProgramDto> getProgramById(@PathVariable Long id) {
-        return ResponseEntity.ok(gymProgramService.getGymProgramById(id));
+        GymProgramDto program = gymProgramService.getGymProgramById(id);
+        return ETags.ok(program, program.getVersion());
     }
     
     @GetMapping("/trainer/{trainerId}/programs")
@@ -57,8 +71,14 @@ public class GymProgramController {
     @PreAuthorize("hasRole('TRAINER') or hasRole('ADMIN')")
     public ResponseEntity<GymProgramDto> updateProgram(
             @PathVariable Long id, 
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody GymProgramDto programDto) {
-        return ResponseEntity.ok(gymProgramService.updateGymProgram(id, programDto));
+        Long expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (expectedVersion != null) {
+            programDto.setVersion(expectedVersion);
+        }
+        GymProgramDto program = gymProgramService.updateGymProgram(id, programDto);
+        return ETags.ok(program, program.getVersion());
     }
     
     @DeleteMapping("/programs/{id}")
@@ -114,8 +134,37 @@ public class GymProgramController {
     
     @GetMapping("/programs/{programId}/users")
     @PreAuthorize("hasRole('TRAINER') or hasRole('ADMIN')")
-    public ResponseEntity<List<UserGymProgramDto>> getProgramUsers(@PathVariable Long programId) {
-        return ResponseEntity.ok(gymProgramService.getUsersForGymProgram(programId));
+    public ResponseEntity<Page<ProgramEnrollmentDto>> getProgramUsers(
+            @PathVariable Long programId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "purchaseDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) Set<String> expand) {
+        
+        // Same bound as the keyset listings, so the roster can't be read in one unbounded page
+        CursorPage.checkSize(size);
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? 
+                Sort.Direction.ASC : Sort.Direction.DESC;
+        
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+        
+        return ResponseEntity.ok(gymProgramService.getEnrollmentsForGymProgram(programId, expand, pageable));
+    }
+    
+    @GetMapping("/programs/{programId}/matches")
+    @PreAuthorize("hasRole('TRAINER') or hasRole('ADMIN')")
+    public ResponseEntity<List<ClientMatchDto>> getClientMatches(
+            @PathVariable Long programId,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(gymProgramService.getClientMatches(programId, limit));
+    }
+    
+    @GetMapping("/programs/{programId}/recommendations")
+    public ResponseEntity<List<RecommendationDto>> getRecommendations(
+            @PathVariable Long programId,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(gymProgramService.getRecommendations(programId, limit));
     }
     
     @PostMapping("/users/{userId}/programs/{programId}/purchase")
@@ -1,5 +1,6 @@
 package com.sheshape.controller;
 
+import com.sheshape.dto.CursorPage;
 import com.sheshape.dto.NutritionPlanDto;
 import com.sheshape.dto.UserNutritionPlanDto;
 import com.sheshape.service.NutritionPlanService;
@@ -25,19 +26,24 @@ public class NutritionPlanController {
     }
 
     @GetMapping("/plans")
-    public ResponseEntity<List<NutritionPlanDto>> getAllActivePlans() {
-        return ResponseEntity.ok(nutritionPlanService.getActiveNutritionPlans());
+    public ResponseEntity<CursorPage<NutritionPlanDto>> getAllActivePlans(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(nutritionPlanService.getActiveNutritionPlans(cursor, size));
     }
     
     @GetMapping("/plans/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<NutritionPlanDto>> getAllPlans() {
-        return ResponseEntity.ok(nutritionPlanService.getAllNutritionPlans());
+    public ResponseEntity<CursorPage<NutritionPlanDto>> getAllPlans(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(nutritionPlanService.getAllNutritionPlans(cursor, size));
     }
     
     @GetMapping("/plans/{id}")
     public ResponseEntity<NutritionPlanDto> getPlanById(@PathVariable Long id) {
-        return ResponseEntity.ok(nutritionPlanService.getNutritionPlanById(id));
+        NutritionPlanDto plan = nutritionPlanService.getNutritionPlanById(id);
+        return ETags.ok(plan, plan.getVersion());
     }
     
     @GetMapping("/nutritionist/{nutritionistId}/plans")
@@ -56,8 +62,14 @@ public class NutritionPlanController {
     @PreAuthorize("hasRole('NUTRITIONIST') or hasRole('ADMIN')")
     public ResponseEntity<NutritionPlanDto> updatePlan(
             @PathVariable Long id, 
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody NutritionPlanDto planDto) {
-        return ResponseEntity.ok(nutritionPlanService.updateNutritionPlan(id, planDto));
+        Long expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (expectedVersion != null) {
+            planDto.setVersion(expectedVersion);
+        }
+        NutritionPlanDto plan = nutritionPlanService.updateNutritionPlan(id, planDto);
+        return ETags.ok(plan, plan.getVersion());
     }
     
     @DeleteMapping("/plans/{id}")
@@ -1,27 +1,38 @@
 package com.sheshape.controller;
 
+import com.sheshape.dto.CursorPage;
+import com.sheshape.dto.ImportReport;
 import com.sheshape.dto.ProductDto;
+import com.sheshape.dto.ProductSummaryDto;
+import com.sheshape.dto.SearchPage;
 import com.sheshape.service.ProductService;
+import com.sheshape.service.ProductTransferService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductTransferService productTransferService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductTransferService productTransferService) {
         this.productService = productService;
+        this.productTransferService = productTransferService;
     }
 
     @GetMapping
@@ -57,7 +68,8 @@ public class ProductController {
     
     @GetMapping("/{id}")
     public ResponseEntity<ProductDto> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+        ProductDto product = productService.getProductById(id);
+        return ETags.ok(product, product.getVersion());
     }
     
     @GetMapping("/category/{category}")
@@ -76,9 +88,9 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductsByCategory(category, pageable));
     }
     
-    @GetMapping("/search")
-    public ResponseEntity<Page<ProductDto>> searchProducts(
-            @RequestParam String keyword,
+    @GetMapping("/summaries")
+    public ResponseEntity<Page<ProductSummaryDto>> getActiveProductSummaries(
+            @RequestParam(required = false) String category,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
@@ -89,12 +101,28 @@ public class ProductController {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         
-        return ResponseEntity.ok(productService.searchProducts(keyword, pageable));
+        return ResponseEntity.ok(productService.getActiveProductSummaries(category, pageable));
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<SearchPage<ProductDto>> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        // Results are ranked by relevance, so there is no sort parameter
+        Pageable pageable = PageRequest.of(page, size);
+        
+        return ResponseEntity.ok(productService.searchProducts(keyword, category, pageable));
     }
     
     @GetMapping("/in-stock")
-    public ResponseEntity<List<ProductDto>> getProductsInStock() {
-        return ResponseEntity.ok(productService.getProductsInStock());
+    public ResponseEntity<CursorPage<ProductDto>> getProductsInStock(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getProductsInStock(category, cursor, size));
     }
     
     @PostMapping
@@ -104,12 +132,38 @@ public class ProductController {
                 .body(productService.createProduct(productDto));
     }
     
+    // The body is read as a stream, never buffered whole: send it as text/csv or application/x-ndjson
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportReport> importProducts(
+            @RequestParam(defaultValue = "csv") String format,
+            InputStream body) {
+        return ResponseEntity.ok(productTransferService.importProducts(ProductTransferService.Format.of(format), body));
+    }
+    
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "csv") String format) {
+        ProductTransferService.Format exportFormat = ProductTransferService.Format.of(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products." + exportFormat.name().toLowerCase() + "\"")
+                .body(output -> productTransferService.exportProducts(exportFormat, output));
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ProductDto> updateProduct(
             @PathVariable Long id, 
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody ProductDto productDto) {
-        return ResponseEntity.ok(productService.updateProduct(id, productDto));
+        Long expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (expectedVersion != null) {
+            productDto.setVersion(expectedVersion);
+        }
+        ProductDto product = productService.updateProduct(id, productDto);
+        return ETags.ok(product, product.getVersion());
     }
     
     @PutMapping("/{id}/activate")
@@ -124,6 +178,20 @@ public class ProductController {
         return ResponseEntity.ok(productService.deactivateProduct(id));
     }
     
+    @PutMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> startFlashSale(@PathVariable Long id) {
+        productService.startFlashSale(id);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @DeleteMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> endFlashSale(@PathVariable Long id) {
+        productService.endFlashSale(id);
+        return ResponseEntity.noContent().build();
+    }
+    
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
@@ -119,7 +119,7 @@ public class ProductImageController {
                 })
                 .collect(Collectors.toList());
         
-        productImageService.updateImagePositions(productImages);
+        productImageService.updateImagePositions(productId, productImages);
         
         Map<String, String> response = new HashMap<>();
         response.put("message", "Image order updated successfully");
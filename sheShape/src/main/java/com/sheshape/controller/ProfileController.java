@@ -45,18 +45,23 @@ public class ProfileController {
     @PutMapping("/update")
     public ResponseEntity<ApiResponse<ProfileResponseDTO>> updateProfile(
             @RequestHeader("Authorization") String token,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody ProfileUpdateRequestDTO request) {
 
         Long userId = extractUserIdFromToken(token);
         log.info("Profile update request received for user ID: {}", userId);
 
+        Long expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (expectedVersion != null) {
+            request.setVersion(expectedVersion);
+        }
         ProfileResponseDTO profile = profileService.updateProfile(userId, request);
 
-        return ResponseEntity.ok(ApiResponse.<ProfileResponseDTO>builder()
+        return ETags.ok(ApiResponse.<ProfileResponseDTO>builder()
                 .success(true)
                 .message("Profile updated successfully")
                 .data(profile)
-                .build());
+                .build(), profile.getVersion());
     }
 
     @PostMapping("/picture")
@@ -85,11 +90,11 @@ public class ProfileController {
 
         ProfileResponseDTO profile = profileService.getUserProfile(userId);
 
-        return ResponseEntity.ok(ApiResponse.<ProfileResponseDTO>builder()
+        return ETags.ok(ApiResponse.<ProfileResponseDTO>builder()
                 .success(true)
                 .message("Profile retrieved successfully")
                 .data(profile)
-                .build());
+                .build(), profile.getVersion());
     }
 
     @GetMapping("/summary")
@@ -111,18 +116,23 @@ public class ProfileController {
     @PatchMapping("/basic")
     public ResponseEntity<ApiResponse<ProfileResponseDTO>> updateBasicInfo(
             @RequestHeader("Authorization") String token,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody BasicProfileInfoDTO request) {
 
         Long userId = extractUserIdFromToken(token);
         log.info("Basic profile update request received for user ID: {}", userId);
 
+        Long expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (expectedVersion != null) {
+            request.setVersion(expectedVersion);
+        }
         ProfileResponseDTO profile = profileService.updateBasicInfo(userId, request);
 
-        return ResponseEntity.ok(ApiResponse.<ProfileResponseDTO>builder()
+        return ETags.ok(ApiResponse.<ProfileResponseDTO>builder()
                 .success(true)
                 .message("Basic profile information updated successfully")
                 .data(profile)
-                .build());
+                .build(), profile.getVersion());
     }
 
     @DeleteMapping("/picture")
@@ -132,8 +142,7 @@ public class ProfileController {
         Long userId = extractUserIdFromToken(token);
         log.info("Profile picture deletion request received for user ID: {}", userId);
 
-        // Implement this method in service
-        // profileService.deleteProfilePicture(userId);
+        profileService.deleteProfilePicture(userId);
 
         return ResponseEntity.ok(ApiResponse.<String>builder()
                 .success(true)
@@ -38,6 +38,8 @@ public class BlogPostDto {
     
     private LocalDateTime updatedAt;
     
+    private Long version;
+    
     // Constructor from BlogPost entity
     public BlogPostDto(BlogPost blogPost) {
         this.id = blogPost.getId();
@@ -50,6 +52,7 @@ public class BlogPostDto {
         this.authorId = blogPost.getAuthor().getId();
         this.createdAt = blogPost.getCreatedAt();
         this.updatedAt = blogPost.getUpdatedAt();
+        this.version = blogPost.getVersion();
         
         if (blogPost.getAuthor() != null) {
             this.author = new UserDto(blogPost.getAuthor());
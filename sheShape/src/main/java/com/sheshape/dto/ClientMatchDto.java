@@ -0,0 +1,21 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A client suggested for a program, with how well their fitness profile
+ * fits it (0-100).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClientMatchDto {
+
+    private Long userId;
+
+    private Integer score;
+
+    private UserDto user;
+}
@@ -0,0 +1,46 @@
+package com.sheshape.dto;
+
+import com.sheshape.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One slice of a keyset-paginated listing. {@code nextCursor} is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private List<T> content;
+
+    private String nextCursor;
+
+    private int size;
+
+    public static void checkSize(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_SIZE);
+        }
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra
+     * row only signals that another page exists and is not returned.
+     */
+    public static <E, D> CursorPage<D> of(List<E> rows, int size,
+                                          Function<E, KeysetCursor> cursorOf, Function<E, D> mapper) {
+        boolean hasMore = rows.size() > size;
+        List<E> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+
+        return new CursorPage<>(page.stream().map(mapper).toList(), nextCursor, size);
+    }
+}
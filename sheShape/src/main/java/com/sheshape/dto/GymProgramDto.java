@@ -39,6 +39,13 @@ public class GymProgramDto {
     
     private Boolean isActive;
     
+    private List<String> targetGoals;
+    
+    private List<String> scheduleDays;
+    
+    @Min(value = 1, message = "Sessions per week must be at least 1")
+    private Integer sessionsPerWeek;
+    
     private Long trainerId;
     
     private UserDto trainer;
@@ -49,6 +56,8 @@ public class GymProgramDto {
     
     private LocalDateTime updatedAt;
     
+    private Long version;
+    
     // Constructor from GymProgram entity
     public GymProgramDto(GymProgram program) {
         this.id = program.getId();
@@ -58,9 +67,13 @@ public class GymProgramDto {
         this.durationDays = program.getDurationDays();
         this.price = program.getPrice();
         this.isActive = program.getIsActive();
+        this.targetGoals = program.getTargetGoals();
+        this.scheduleDays = program.getScheduleDays();
+        this.sessionsPerWeek = program.getSessionsPerWeek();
         this.trainerId = program.getTrainer().getId();
         this.createdAt = program.getCreatedAt();
         this.updatedAt = program.getUpdatedAt();
+        this.version = program.getVersion();
         
         if (program.getTrainer() != null) {
             this.trainer = new UserDto(program.getTrainer());
@@ -0,0 +1,51 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Only the first few row errors are listed;
+ * {@code failed} counts them all.
+ */
+@Data
+@NoArgsConstructor
+public class ImportReport {
+
+    private long received;
+
+    private long created;
+
+    private long updated;
+
+    private long failed;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    // More rows failed than are listed in errors
+    private boolean errorsTruncated;
+
+    // Reading stopped early; rows after the last error were not imported
+    private boolean aborted;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        // 1-based, not counting the CSV header
+        private long row;
+        private String message;
+    }
+
+    public void addError(long row, String message, int maxErrors) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(row, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+}
@@ -41,6 +41,8 @@ public class NutritionPlanDto {
     
     private LocalDateTime updatedAt;
     
+    private Long version;
+    
     // Constructor from NutritionPlan entity
     public NutritionPlanDto(NutritionPlan plan) {
         this.id = plan.getId();
@@ -52,6 +54,7 @@ public class NutritionPlanDto {
         this.nutritionistId = plan.getNutritionist().getId();
         this.createdAt = plan.getCreatedAt();
         this.updatedAt = plan.getUpdatedAt();
+        this.version = plan.getVersion();
         
         if (plan.getNutritionist() != null) {
             this.nutritionist = new UserDto(plan.getNutritionist());
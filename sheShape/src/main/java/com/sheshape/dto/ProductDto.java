@@ -1,6 +1,7 @@
 package com.sheshape.dto;
 
 import com.sheshape.model.Product;
+import com.sheshape.model.ProductImage;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -48,9 +49,19 @@ public class ProductDto {
     private LocalDateTime createdAt;
     
     private LocalDateTime updatedAt;
+    
+    private Long version;
 
     // Constructor from Product entity
     public ProductDto(Product product) {
+        this(product, product.getImages(), product.getCategories());
+    }
+
+    /**
+     * For listing pages, where images and categories were fetched for the whole
+     * page up front instead of through the product's lazy collections.
+     */
+    public ProductDto(Product product, List<ProductImage> images, Set<String> categories) {
         this.id = product.getId();
         this.name = product.getName();
         this.description = product.getDescription();
@@ -60,26 +71,17 @@ public class ProductDto {
         this.isActive = product.getIsActive();
         this.createdAt = product.getCreatedAt();
         this.updatedAt = product.getUpdatedAt();
+        this.version = product.getVersion();
 
         // Convert categories
-        if (product.getCategories() != null) {
-            this.categories = new HashSet<>(product.getCategories());
+        if (categories != null) {
+            this.categories = new HashSet<>(categories);
         }
 
         // Convert images
-        if (product.getImages() != null && !product.getImages().isEmpty()) {
-            this.images = product.getImages().stream()
-                    .map(image -> {
-                        ProductImageDto imageDto = new ProductImageDto();
-                        imageDto.setId(image.getId());
-                        imageDto.setProductId(product.getId());
-                        imageDto.setImageUrl(image.getImageUrl());
-                        imageDto.setFileKey(image.getFileKey());
-                        imageDto.setMain(image.isMain());
-                        imageDto.setPosition(image.getPosition());
-                        imageDto.setCreatedAt(image.getCreatedAt());
-                        return imageDto;
-                    })
+        if (images != null && !images.isEmpty()) {
+            this.images = images.stream()
+                    .map(image -> new ProductImageDto(product.getId(), image))
                     .collect(Collectors.toList());
         }
     }
@@ -2,6 +2,7 @@
 package com.sheshape.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.sheshape.model.ProductImage;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -27,4 +28,15 @@ public class ProductImageDto {
     private Integer position;
     
     private LocalDateTime createdAt;
+
+    // Takes the owner's id so a lazy product reference is never touched
+    public ProductImageDto(Long productId, ProductImage image) {
+        this.id = image.getId();
+        this.productId = productId;
+        this.imageUrl = image.getImageUrl();
+        this.fileKey = image.getFileKey();
+        this.main = image.isMain();
+        this.position = image.getPosition();
+        this.createdAt = image.getCreatedAt();
+    }
 }
\ No newline at end of file
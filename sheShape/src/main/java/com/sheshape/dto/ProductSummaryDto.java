@@ -0,0 +1,47 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * What a product card needs: no description and only the main image (or the
+ * first one when none is flagged main).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSummaryDto {
+
+    private Long id;
+
+    private String name;
+
+    private BigDecimal price;
+
+    private BigDecimal discountPrice;
+
+    private Integer inventoryCount;
+
+    private Set<String> categories = new HashSet<>();
+
+    private ProductImageDto mainImage;
+
+    public ProductSummaryDto(ProductDto product) {
+        this.id = product.getId();
+        this.name = product.getName();
+        this.price = product.getPrice();
+        this.discountPrice = product.getDiscountPrice();
+        this.inventoryCount = product.getInventoryCount();
+        this.categories = product.getCategories();
+        this.mainImage = product.getImages().stream()
+                .min(Comparator.comparing((ProductImageDto image) -> !image.isMain())
+                        .thenComparing(ProductImageDto::getPosition, Comparator.nullsLast(Comparator.naturalOrder())))
+                .orElse(null);
+    }
+}
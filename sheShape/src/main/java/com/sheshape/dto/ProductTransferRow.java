@@ -0,0 +1,47 @@
+package com.sheshape.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One product in a bulk import or export file. A row without an id creates a
+ * product; a row with one replaces that product, categories and images
+ * included. Images are storage keys, the first one being the main image.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductTransferRow {
+
+    private Long id;
+
+    @NotBlank(message = "Product name is required")
+    private String name;
+
+    private String description;
+
+    @NotNull(message = "Price is required")
+    @Min(value = 0, message = "Price cannot be negative")
+    private BigDecimal price;
+
+    @Min(value = 0, message = "Discount price cannot be negative")
+    private BigDecimal discountPrice;
+
+    @NotNull(message = "Inventory count is required")
+    @Min(value = 0, message = "Inventory count cannot be negative")
+    private Integer inventoryCount;
+
+    private Boolean isActive;
+
+    private List<String> categories = new ArrayList<>();
+
+    private List<String> imageKeys = new ArrayList<>();
+}
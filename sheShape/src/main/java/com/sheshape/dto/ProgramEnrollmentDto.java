@@ -0,0 +1,53 @@
+package com.sheshape.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sheshape.model.UserGymProgram;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight enrollment row for program rosters. {@code program} and {@code user}
+ * are only filled in when requested through {@code ?expand=program,user}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProgramEnrollmentDto {
+
+    public static final String EXPAND_PROGRAM = "program";
+    public static final String EXPAND_USER = "user";
+
+    private Long id;
+
+    private Long userId;
+
+    private Long programId;
+
+    private String status;
+
+    private LocalDateTime purchaseDate;
+
+    private LocalDateTime expiryDate;
+
+    private Long lastWatchedSessionId;
+
+    private GymProgramDto program;
+
+    private UserDto user;
+
+    // Used by the JPQL constructor projection
+    public ProgramEnrollmentDto(Long id, Long userId, Long programId, UserGymProgram.Status status,
+                                LocalDateTime purchaseDate, LocalDateTime expiryDate, Long lastWatchedSessionId) {
+        this.id = id;
+        this.userId = userId;
+        this.programId = programId;
+        this.status = status.name();
+        this.purchaseDate = purchaseDate;
+        this.expiryDate = expiryDate;
+        this.lastWatchedSessionId = lastWatchedSessionId;
+    }
+}
@@ -0,0 +1,31 @@
+package com.sheshape.dto;
+
+import com.sheshape.recommendation.Recommendation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A program or nutrition plan often bought together with the one asked about.
+ * {@code type} says which catalog {@code id} belongs to.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecommendationDto {
+
+    private String type;
+
+    private Long id;
+
+    private Integer coPurchases;
+
+    private Double score;
+
+    public RecommendationDto(Recommendation recommendation) {
+        this.type = recommendation.kind().name();
+        this.id = recommendation.id();
+        this.coPurchases = recommendation.coPurchases();
+        this.score = recommendation.score();
+    }
+}
@@ -0,0 +1,32 @@
+package com.sheshape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of search hits in relevance order, with the number of matches per
+ * category so the client can offer them as filters.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchPage<T> {
+
+    private List<T> content;
+
+    private int page;
+
+    private int size;
+
+    private long totalElements;
+
+    private Map<String, Long> facets;
+
+    public int getTotalPages() {
+        return size == 0 ? 0 : (int) Math.ceil((double) totalElements / size);
+    }
+}
@@ -24,4 +24,6 @@ public class BasicProfileInfoDTO {
 
     @Pattern(regexp = "^[+]?[0-9]{10,15}$", message = "Please provide a valid phone number")
     private String phoneNumber;
+
+    private Long version;
 }
@@ -65,4 +65,5 @@ public class ProfileResponseDTO {
     // Metadata
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 }
\ No newline at end of file
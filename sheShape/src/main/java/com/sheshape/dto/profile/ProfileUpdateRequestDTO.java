@@ -95,4 +95,7 @@ public class ProfileUpdateRequestDTO {
     private Boolean emailNotifications;
     private Boolean pushNotifications;
     private PrivacyLevel privacyLevel;
-}
\ No newline at end of file
+
+    // Version the client last read; null skips the check
+    private Long version;
+}
@@ -1,5 +1,6 @@
 package com.sheshape.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -58,6 +59,28 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
     }
     
+    // Handle stale If-Match / version
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<?> preconditionFailedException(PreconditionFailedException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+        
+        return new ResponseEntity<>(errorDetails, HttpStatus.PRECONDITION_FAILED);
+    }
+    
+    // Handle concurrent updates that lost the optimistic lock (after any retries)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> optimisticLockingFailureException(OptimisticLockingFailureException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(
+                new Date(),
+                "The resource was modified concurrently, please reload and try again",
+                request.getDescription(false));
+        
+        return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
+    }
+    
     // Handle validation exceptions
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> validationException(MethodArgumentNotValidException ex, WebRequest request) {
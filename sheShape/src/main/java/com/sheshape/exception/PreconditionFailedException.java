@@ -0,0 +1,21 @@
+package com.sheshape.exception;
+
+import java.util.Objects;
+
+/**
+ * The client's If-Match (or the version it sent back) no longer matches the
+ * stored version; served as 412 so the client re-reads before retrying.
+ */
+public class PreconditionFailedException extends RuntimeException {
+    
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+    
+    public static void checkVersion(String resource, Long expected, Long actual) {
+        if (expected != null && !Objects.equals(expected, actual)) {
+            throw new PreconditionFailedException(
+                    resource + " has been modified (version " + actual + ", expected " + expected + ")");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.sheshape.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Writes one structured line per request to the {@code com.sheshape.access} logger
+ * (asynchronous appender, see logback-spring.xml). Successful fast requests are
+ * sampled; errors and slow requests are always logged. Also assigns the request
+ * id, exposed as the {@code requestId} MDC key and the {@code X-Request-Id} header.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String REQUEST_ID_MDC_KEY = "requestId";
+
+    // Set by the security filters once the caller is known; the security context is
+    // already cleared by the time this filter logs
+    public static final String USER_ID_ATTRIBUTE = AccessLogFilter.class.getName() + ".userId";
+
+    private static final Logger accessLog = LoggerFactory.getLogger("com.sheshape.access");
+
+    // A caller's id goes into log lines and a response header, so nothing that could forge either
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final double sampleRate;
+    private final long slowThresholdMillis;
+
+    public AccessLogFilter(
+            @Value("${logging.access.sample-rate:1.0}") double sampleRate,
+            @Value("${logging.access.slow-threshold-ms:1000}") long slowThresholdMillis) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThresholdMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+
+        MDC.put(REQUEST_ID_MDC_KEY, requestId);
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        long start = System.nanoTime();
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+            int status = response.getStatus();
+
+            if (accessLog.isInfoEnabled() && shouldLog(status, latencyMillis)) {
+                accessLog.info("requestId={} method={} route={} status={} latencyMs={} userId={}",
+                        requestId,
+                        request.getMethod(),
+                        route(request),
+                        status,
+                        latencyMillis,
+                        request.getAttribute(USER_ID_ATTRIBUTE));
+            }
+            MDC.remove(REQUEST_ID_MDC_KEY);
+        }
+    }
+
+    private boolean shouldLog(int status, long latencyMillis) {
+        return status >= 400
+                || latencyMillis >= slowThresholdMillis
+                || sampleRate >= 1.0
+                || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    // Prefer the matched pattern (/api/products/{id}) so routes aggregate cleanly
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+}
@@ -0,0 +1,28 @@
+package com.sheshape.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Security audit events on the {@code com.sheshape.audit} logger. Never sampled;
+ * written through the asynchronous appender like the access log.
+ */
+public final class AuditLog {
+
+    private static final Logger auditLog = LoggerFactory.getLogger("com.sheshape.audit");
+
+    private AuditLog() {
+    }
+
+    public static void loginSucceeded(Object userId) {
+        auditLog.info("event=login.success userId={}", userId);
+    }
+
+    public static void loginFailed(String reason) {
+        auditLog.info("event=login.failure reason={}", reason);
+    }
+
+    public static void logout(Object userId) {
+        auditLog.info("event=logout userId={}", userId);
+    }
+}
@@ -42,6 +42,10 @@ public class BlogPost {
     @JoinColumn(name = "author_id", nullable = false)
     private User author;
     
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
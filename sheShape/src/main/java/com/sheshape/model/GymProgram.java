@@ -11,11 +11,16 @@ import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 @Entity
-@Table(name = "gym_programs")
+@Table(name = "gym_programs", indexes = {
+        @Index(name = "idx_gym_programs_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_gym_programs_active_created_at_id", columnList = "is_active, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,6 +48,19 @@ public class GymProgram {
     
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
+
+    // Optional targeting, matched against clients' fitness profiles by ClientMatchIndex:
+    // FitnessGoal names, and day names as in FitnessProfile.dayName
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "target_goals")
+    private List<String> targetGoals;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "schedule_days")
+    private List<String> scheduleDays;
+
+    @Column(name = "sessions_per_week")
+    private Integer sessionsPerWeek;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "trainer_id", nullable = false)
@@ -54,6 +72,10 @@ public class GymProgram {
     @OneToMany(mappedBy = "program", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<UserGymProgram> users = new HashSet<>();
     
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -62,6 +84,23 @@ public class GymProgram {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Never null for callers; an empty list is stored as NULL
+    public List<String> getTargetGoals() {
+        return targetGoals != null ? targetGoals : List.of();
+    }
+
+    public void setTargetGoals(List<String> targetGoals) {
+        this.targetGoals = targetGoals == null || targetGoals.isEmpty() ? null : new ArrayList<>(targetGoals);
+    }
+
+    public List<String> getScheduleDays() {
+        return scheduleDays != null ? scheduleDays : List.of();
+    }
+
+    public void setScheduleDays(List<String> scheduleDays) {
+        this.scheduleDays = scheduleDays == null || scheduleDays.isEmpty() ? null : new ArrayList<>(scheduleDays);
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -17,7 +17,8 @@ import org.springframework.data.annotation.LastModifiedDate;
 public class GymSession {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gym_sessions_seq")
+    @SequenceGenerator(name = "gym_sessions_seq", sequenceName = "gym_sessions_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
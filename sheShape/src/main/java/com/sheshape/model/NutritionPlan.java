@@ -13,7 +13,10 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 @Entity
-@Table(name = "nutrition_plans")
+@Table(name = "nutrition_plans", indexes = {
+        @Index(name = "idx_nutrition_plans_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_nutrition_plans_active_created_at_id", columnList = "is_active, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,6 +48,10 @@ public class NutritionPlan {
     @OneToMany(mappedBy = "plan", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<UserNutritionPlan> users = new HashSet<>();
     
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -21,8 +21,10 @@ import java.util.Set;
 @AllArgsConstructor
 public class Product {
     
+    // Ids are reserved 50 at a time, so inserts can be JDBC-batched (IDENTITY can't be)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -46,13 +48,18 @@ public class Product {
 
     @ElementCollection
     @CollectionTable(name = "product_categories",
-            joinColumns = @JoinColumn(name = "product_id"))
+            joinColumns = @JoinColumn(name = "product_id"),
+            indexes = @Index(name = "idx_product_categories_product_id", columnList = "product_id"))
     @Column(name = "category")
     private Set<String> categories = new HashSet<>();
     
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
     
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -39,6 +39,10 @@ public class User {
 
     @Column(name = "profile_completed")
     private Boolean profileCompleted = false;
+
+    // Bumped whenever previously issued stateless tokens must stop being honoured
+    @Column(name = "account_version")
+    private Long accountVersion = 0L;
     
     @CreatedDate
     @Column(name = "created_at", updatable = false)
@@ -71,6 +75,10 @@ public class User {
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
+
+    public void incrementAccountVersion() {
+        accountVersion = (accountVersion == null ? 0L : accountVersion) + 1;
+    }
     
     public enum Role {
         ADMIN,
@@ -10,14 +10,21 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 @Entity
-@Table(name = "user_gym_programs")
+@Table(name = "user_gym_programs", indexes = {
+        @Index(name = "idx_user_gym_programs_user_id", columnList = "user_id"),
+        // New purchases since the last co-purchase run (CoPurchaseRecommender)
+        @Index(name = "idx_user_gym_programs_created_at", columnList = "created_at"),
+        // Overdue ACTIVE rows, for EnrollmentExpiry
+        @Index(name = "idx_user_gym_programs_status_expiry_date", columnList = "status, expiry_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserGymProgram {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_gym_programs_seq")
+    @SequenceGenerator(name = "user_gym_programs_seq", sequenceName = "user_gym_programs_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -41,6 +48,10 @@ public class UserGymProgram {
     @Column(nullable = false)
     private Status status = Status.ACTIVE;
     
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -10,14 +10,21 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 @Entity
-@Table(name = "user_nutrition_plans")
+@Table(name = "user_nutrition_plans", indexes = {
+        @Index(name = "idx_user_nutrition_plans_user_id", columnList = "user_id"),
+        // New purchases since the last co-purchase run (CoPurchaseRecommender)
+        @Index(name = "idx_user_nutrition_plans_created_at", columnList = "created_at"),
+        // Overdue ACTIVE rows, for EnrollmentExpiry
+        @Index(name = "idx_user_nutrition_plans_status_expiry_date", columnList = "status, expiry_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserNutritionPlan {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_nutrition_plans_seq")
+    @SequenceGenerator(name = "user_nutrition_plans_seq", sequenceName = "user_nutrition_plans_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,6 +45,10 @@ public class UserNutritionPlan {
     @Column(nullable = false)
     private Status status = Status.ACTIVE;
     
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -5,19 +5,28 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
+import java.time.DayOfWeek;
 import java.time.LocalDateTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 @Entity
-@Table(name = "fitness_profiles")
+@Table(name = "fitness_profiles", indexes = {
+        @Index(name = "idx_fitness_profiles_primary_goal", columnList = "primary_goal")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class FitnessProfile {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fitness_profiles_seq")
+    @SequenceGenerator(name = "fitness_profiles_seq", sequenceName = "fitness_profiles_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false, unique = true)
@@ -31,13 +40,15 @@ public class FitnessProfile {
     @Column(name = "primary_goal")
     private FitnessGoal primaryGoal;
 
-    // Store secondary goals as comma-separated values to match frontend
-    @Column(name = "secondary_goals", length = 500)
-    private String secondaryGoalsRaw;
+    // Native arrays (GIN-indexed on Postgres, see PostgresSchema), so trainer
+    // matching can filter on them in SQL; decoded once when the row is read
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "secondary_goals")
+    private List<String> secondaryGoals;
 
-    // Store preferred activity types as comma-separated values to match frontend
-    @Column(name = "preferred_activity_types", length = 500)
-    private String preferredActivityTypesRaw;
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "preferred_activity_types")
+    private List<String> preferredActivityTypes;
 
     // Updated field names to match frontend
     @Column(name = "workout_frequency")
@@ -46,13 +57,18 @@ public class FitnessProfile {
     @Column(name = "workout_duration")
     private Integer workoutDuration;
 
-    // Store workout days as comma-separated values
-    @Column(name = "preferred_workout_days", length = 200)
-    private String preferredWorkoutDaysRaw;
+    // Day names as the app sends them ("Monday"), see dayName
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "preferred_workout_days")
+    private List<String> preferredWorkoutDays;
 
-    // Store workout times as comma-separated values
-    @Column(name = "preferred_workout_times", length = 500)
-    private String preferredWorkoutTimesRaw;
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "preferred_workout_times")
+    private List<String> preferredWorkoutTimes;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -62,69 +78,46 @@ public class FitnessProfile {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    // Helper methods to convert between List and String storage
-    @Transient
+    // Never null for callers; an empty list is stored as NULL
     public List<String> getSecondaryGoals() {
-        if (secondaryGoalsRaw == null || secondaryGoalsRaw.trim().isEmpty()) {
-            return List.of();
-        }
-        return List.of(secondaryGoalsRaw.split(","));
+        return secondaryGoals != null ? secondaryGoals : List.of();
     }
 
     public void setSecondaryGoals(List<String> secondaryGoals) {
-        if (secondaryGoals == null || secondaryGoals.isEmpty()) {
-            this.secondaryGoalsRaw = null;
-        } else {
-            this.secondaryGoalsRaw = String.join(",", secondaryGoals);
-        }
+        this.secondaryGoals = stored(secondaryGoals);
     }
 
-    @Transient
     public List<String> getPreferredActivityTypes() {
-        if (preferredActivityTypesRaw == null || preferredActivityTypesRaw.trim().isEmpty()) {
-            return List.of();
-        }
-        return List.of(preferredActivityTypesRaw.split(","));
+        return preferredActivityTypes != null ? preferredActivityTypes : List.of();
     }
 
     public void setPreferredActivityTypes(List<String> preferredActivityTypes) {
-        if (preferredActivityTypes == null || preferredActivityTypes.isEmpty()) {
-            this.preferredActivityTypesRaw = null;
-        } else {
-            this.preferredActivityTypesRaw = String.join(",", preferredActivityTypes);
-        }
+        this.preferredActivityTypes = stored(preferredActivityTypes);
     }
 
-    @Transient
     public List<String> getPreferredWorkoutDays() {
-        if (preferredWorkoutDaysRaw == null || preferredWorkoutDaysRaw.trim().isEmpty()) {
-            return List.of();
-        }
-        return List.of(preferredWorkoutDaysRaw.split(","));
+        return preferredWorkoutDays != null ? preferredWorkoutDays : List.of();
     }
 
     public void setPreferredWorkoutDays(List<String> preferredWorkoutDays) {
-        if (preferredWorkoutDays == null || preferredWorkoutDays.isEmpty()) {
-            this.preferredWorkoutDaysRaw = null;
-        } else {
-            this.preferredWorkoutDaysRaw = String.join(",", preferredWorkoutDays);
-        }
+        this.preferredWorkoutDays = stored(preferredWorkoutDays);
     }
 
-    @Transient
     public List<String> getPreferredWorkoutTimes() {
-        if (preferredWorkoutTimesRaw == null || preferredWorkoutTimesRaw.trim().isEmpty()) {
-            return List.of();
-        }
-        return List.of(preferredWorkoutTimesRaw.split(","));
+        return preferredWorkoutTimes != null ? preferredWorkoutTimes : List.of();
     }
 
     public void setPreferredWorkoutTimes(List<String> preferredWorkoutTimes) {
-        if (preferredWorkoutTimes == null || preferredWorkoutTimes.isEmpty()) {
-            this.preferredWorkoutTimesRaw = null;
-        } else {
-            this.preferredWorkoutTimesRaw = String.join(",", preferredWorkoutTimes);
-        }
+        this.preferredWorkoutTimes = stored(preferredWorkoutTimes);
+    }
+
+    /** A day as it is stored in {@code preferred_workout_days}. */
+    public static String dayName(DayOfWeek day) {
+        return day.getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+    }
+
+    private static List<String> stored(List<String> values) {
+        return values == null || values.isEmpty() ? null : new ArrayList<>(values);
     }
 
     // Keep legacy methods for backward compatibility
@@ -5,9 +5,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Entity
@@ -17,21 +20,25 @@ import java.util.List;
 @AllArgsConstructor
 public class HealthInformation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "health_information_seq")
+    @SequenceGenerator(name = "health_information_seq", sequenceName = "health_information_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false, unique = true)
     private Long userId;
 
-    // Store as comma-separated values in a single column but expose as List
-    @Column(name = "dietary_restrictions", length = 1000)
-    private String dietaryRestrictionsRaw;
+    // Native arrays: entries may contain commas ("Ibuprofen, 200 mg")
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "dietary_restrictions")
+    private List<String> dietaryRestrictions;
 
-    @Column(name = "health_conditions", length = 1000)
-    private String healthConditionsRaw;
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "health_conditions")
+    private List<String> healthConditions;
 
-    @Column(name = "medications", length = 500)
-    private String medicationsRaw;
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "medications")
+    private List<String> medications;
 
     @Column(name = "emergency_contact_name")
     private String emergencyContactName;
@@ -39,6 +46,10 @@ public class HealthInformation {
     @Column(name = "emergency_contact_phone")
     private String emergencyContactPhone;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -47,52 +58,32 @@ public class HealthInformation {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    // Helper methods to convert between List and String storage
-    @Transient
+    // Never null for callers; an empty list is stored as NULL
     public List<String> getDietaryRestrictions() {
-        if (dietaryRestrictionsRaw == null || dietaryRestrictionsRaw.trim().isEmpty()) {
-            return List.of();
-        }
-        return List.of(dietaryRestrictionsRaw.split(","));
+        return dietaryRestrictions != null ? dietaryRestrictions : List.of();
     }
 
     public void setDietaryRestrictions(List<String> dietaryRestrictions) {
-        if (dietaryRestrictions == null || dietaryRestrictions.isEmpty()) {
-            this.dietaryRestrictionsRaw = null;
-        } else {
-            this.dietaryRestrictionsRaw = String.join(",", dietaryRestrictions);
-        }
+        this.dietaryRestrictions = stored(dietaryRestrictions);
     }
 
-    @Transient
     public List<String> getHealthConditions() {
-        if (healthConditionsRaw == null || healthConditionsRaw.trim().isEmpty()) {
-            return List.of();
-        }
-        return List.of(healthConditionsRaw.split(","));
+        return healthConditions != null ? healthConditions : List.of();
     }
 
     public void setHealthConditions(List<String> healthConditions) {
-        if (healthConditions == null || healthConditions.isEmpty()) {
-            this.healthConditionsRaw = null;
-        } else {
-            this.healthConditionsRaw = String.join(",", healthConditions);
-        }
+        this.healthConditions = stored(healthConditions);
     }
 
-    @Transient
     public List<String> getMedications() {
-        if (medicationsRaw == null || medicationsRaw.trim().isEmpty()) {
-            return List.of();
-        }
-        return List.of(medicationsRaw.split(","));
+        return medications != null ? medications : List.of();
     }
 
     public void setMedications(List<String> medications) {
-        if (medications == null || medications.isEmpty()) {
-            this.medicationsRaw = null;
-        } else {
-            this.medicationsRaw = String.join(",", medications);
-        }
+        this.medications = stored(medications);
+    }
+
+    private static List<String> stored(List<String> values) {
+        return values == null || values.isEmpty() ? null : new ArrayList<>(values);
     }
-}
\ No newline at end of file
+}
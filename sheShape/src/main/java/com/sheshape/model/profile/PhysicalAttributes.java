@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class PhysicalAttributes {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "physical_attributes_seq")
+    @SequenceGenerator(name = "physical_attributes_seq", sequenceName = "physical_attributes_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false, unique = true)
@@ -31,6 +32,10 @@ public class PhysicalAttributes {
     @Column(name = "target_weight_kg")
     private Double targetWeightKg;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class UserPreferences {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_preferences_seq")
+    @SequenceGenerator(name = "user_preferences_seq", sequenceName = "user_preferences_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false, unique = true)
@@ -38,6 +39,10 @@ public class UserPreferences {
     @Enumerated(EnumType.STRING)
     private PrivacyLevel privacyLevel = PrivacyLevel.PRIVATE;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
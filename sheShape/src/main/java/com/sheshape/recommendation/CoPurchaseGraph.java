@@ -0,0 +1,90 @@
+package com.sheshape.recommendation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
+
+/**
+ * How many users bought each pair of items, held sparsely: per item, a
+ * primitive map from the items its buyers also bought to the number of users
+ * who bought both. Counts only ever grow, so a run can count the new
+ * purchases into a fresh graph and {@link #merge} it into the running total.
+ * Not thread-safe.
+ */
+final class CoPurchaseGraph {
+
+    private static final Comparator<Recommendation> WEAKEST_FIRST =
+            Comparator.comparingDouble(Recommendation::score).thenComparingInt(Recommendation::coPurchases);
+
+    private final Map<Long, LongIntHashMap> pairs = new HashMap<>();
+    private final LongIntHashMap buyers = new LongIntHashMap();
+
+    /**
+     * One user's distinct items. Only purchases marked fresh are new to this
+     * graph's total, so a pair is counted when at least one side is fresh.
+     */
+    void addBasket(long[] items, boolean[] fresh, int size) {
+        for (int i = 0; i < size; i++) {
+            if (fresh[i]) {
+                buyers.addTo(items[i], 1);
+            }
+            for (int j = i + 1; j < size; j++) {
+                if (fresh[i] || fresh[j]) {
+                    neighboursOf(items[i]).addTo(items[j], 1);
+                    neighboursOf(items[j]).addTo(items[i], 1);
+                }
+            }
+        }
+    }
+
+    void merge(CoPurchaseGraph other) {
+        other.buyers.forEach(buyers::addTo);
+        other.pairs.forEach((item, neighbours) -> {
+            LongIntHashMap counts = neighboursOf(item);
+            neighbours.forEach(counts::addTo);
+        });
+    }
+
+    int items() {
+        return buyers.size();
+    }
+
+    /**
+     * For every item, up to {@code limit} others best first, leaving out pairs
+     * bought together fewer than {@code minCoPurchases} times and items that
+     * are no longer {@code available}.
+     */
+    Map<Long, List<Recommendation>> topNeighbours(int limit, int minCoPurchases, LongPredicate available) {
+        Map<Long, List<Recommendation>> top = new HashMap<>(pairs.size() * 2);
+        PriorityQueue<Recommendation> best = new PriorityQueue<>(limit + 1, WEAKEST_FIRST);
+        pairs.forEach((item, neighbours) -> {
+            if (!available.test(item)) {
+                return;
+            }
+            int itemBuyers = buyers.get(item);
+            neighbours.forEach((other, count) -> {
+                if (count >= minCoPurchases && available.test(other)) {
+                    best.add(Recommendation.of(other, count, count / Math.sqrt((double) itemBuyers * buyers.get(other))));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            });
+            if (!best.isEmpty()) {
+                List<Recommendation> ranked = new ArrayList<>(best);
+                ranked.sort(WEAKEST_FIRST.reversed());
+                top.put(item, List.copyOf(ranked));
+                best.clear();
+            }
+        });
+        return top;
+    }
+
+    private LongIntHashMap neighboursOf(long item) {
+        return pairs.computeIfAbsent(item, key -> new LongIntHashMap());
+    }
+}
@@ -0,0 +1,234 @@
+package com.sheshape.recommendation;
+
+import com.sheshape.config.SchedulingConfig;
+import com.sheshape.recommendation.Recommendation.Kind;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * "Users who bought this also bought", over gym program and nutrition plan
+ * purchases. Each run counts only the purchases made since the previous one:
+ * it reads the baskets of just the users who bought something in that window,
+ * pairs each new purchase with the rest of its basket, and merges those
+ * counts into the running {@link CoPurchaseGraph}. The top neighbours of every
+ * item are then recomputed from the graph (cheap next to the scan) and
+ * published, so lookups never touch the database. The first run, at startup,
+ * counts everything.
+ */
+@Component
+public class CoPurchaseRecommender {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoPurchaseRecommender.class);
+
+    private static final int FETCH_SIZE = 1000;
+
+    // Larger baskets (staff and test accounts) would add pairs quadratically and say little
+    private static final int MAX_BASKET_SIZE = 200;
+
+    private static final String ALL_PURCHASES = "SELECT user_id, program_id AS item_id, 0 AS kind, created_at "
+            + "FROM user_gym_programs WHERE created_at <= ? OR created_at IS NULL "
+            + "UNION ALL SELECT user_id, plan_id, 1, created_at "
+            + "FROM user_nutrition_plans WHERE created_at <= ? OR created_at IS NULL "
+            + "ORDER BY user_id";
+
+    // Whole baskets of the users with a purchase in (from, until]; both tables are indexed on created_at and user_id
+    private static final String BASKETS_BOUGHT_INTO = "WITH buyers AS ("
+            + "SELECT user_id FROM user_gym_programs WHERE created_at > ? AND created_at <= ? "
+            + "UNION SELECT user_id FROM user_nutrition_plans WHERE created_at > ? AND created_at <= ?) "
+            + "SELECT user_id, program_id AS item_id, 0 AS kind, created_at FROM user_gym_programs "
+            + "WHERE user_id IN (SELECT user_id FROM buyers) AND (created_at <= ? OR created_at IS NULL) "
+            + "UNION ALL SELECT user_id, plan_id, 1, created_at FROM user_nutrition_plans "
+            + "WHERE user_id IN (SELECT user_id FROM buyers) AND (created_at <= ? OR created_at IS NULL) "
+            + "ORDER BY user_id";
+
+    private static final String AVAILABLE_ITEMS = "SELECT id, 0 FROM gym_programs WHERE is_active "
+            + "UNION ALL SELECT id, 1 FROM nutrition_plans WHERE is_active";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int neighbours;
+    private final int minCoPurchases;
+    private final Duration commitLag;
+
+    // Only touched by update(), which holds the monitor
+    private final CoPurchaseGraph graph = new CoPurchaseGraph();
+    private LocalDateTime countedUntil;
+
+    private volatile Map<Long, List<Recommendation>> recommendations = Map.of();
+
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "co-purchase-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CoPurchaseRecommender(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${recommendations.neighbours:20}") int neighbours,
+            @Value("${recommendations.min-co-purchases:2}") int minCoPurchases,
+            @Value("${recommendations.commit-lag:PT10M}") Duration commitLag) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.neighbours = neighbours;
+        this.minCoPurchases = minCoPurchases;
+        this.commitLag = commitLag;
+    }
+
+    public List<Recommendation> forProgram(Long programId, int limit) {
+        return lookup(Kind.PROGRAM.item(programId), limit);
+    }
+
+    public List<Recommendation> forPlan(Long planId, int limit) {
+        return lookup(Kind.NUTRITION_PLAN.item(planId), limit);
+    }
+
+    /** How many recommendations are kept per item, the most a lookup can return. */
+    public int getNeighbours() {
+        return neighbours;
+    }
+
+    // Counting everything can take a while on a large history, so readiness does not wait for it
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        builder.execute(this::scheduledUpdate);
+    }
+
+    @Scheduled(cron = "${recommendations.update-cron:0 30 3 * * *}", scheduler = SchedulingConfig.BACKGROUND_SCHEDULER)
+    public void scheduledUpdate() {
+        try {
+            update();
+        } catch (RuntimeException e) {
+            logger.warn("Co-purchase update failed, will retry on the next run: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * Counts the purchases made since the last run. Purchases from the last
+     * {@code recommendations.commit-lag} are left for the next one, so a
+     * row whose transaction is still open when its window is read is not
+     * missed.
+     */
+    public synchronized void update() {
+        long started = System.nanoTime();
+        LocalDateTime from = countedUntil;
+        LocalDateTime until = LocalDateTime.now().minus(commitLag);
+        if (from != null && !until.isAfter(from)) {
+            return;
+        }
+
+        // Counted apart and merged only once the scan has finished, so a failed run adds nothing
+        CoPurchaseGraph counted = new CoPurchaseGraph();
+        BasketReader reader = new BasketReader(counted, from);
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(from == null ? ALL_PURCHASES : BASKETS_BOUGHT_INTO);
+            statement.setFetchSize(FETCH_SIZE);
+            int index = 1;
+            if (from != null) {
+                for (int i = 0; i < 2; i++) {
+                    statement.setObject(index++, from);
+                    statement.setObject(index++, until);
+                }
+            }
+            statement.setObject(index++, until);
+            statement.setObject(index, until);
+            return statement;
+        }, reader::read));
+        reader.flush();
+        graph.merge(counted);
+        countedUntil = until;
+
+        Set<Long> available = new HashSet<>();
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(AVAILABLE_ITEMS,
+                (RowCallbackHandler) row -> available.add(Kind.values()[row.getInt(2)].item(row.getLong(1)))));
+        recommendations = graph.topNeighbours(neighbours, minCoPurchases, available::contains);
+
+        logger.info("Counted co-purchases of {} users up to {} ({} items, {} with recommendations) in {} ms",
+                reader.users, until, graph.items(), recommendations.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private List<Recommendation> lookup(long item, int limit) {
+        List<Recommendation> top = recommendations.getOrDefault(item, List.of());
+        return top.size() > limit ? top.subList(0, limit) : top;
+    }
+
+    // Rows arrive ordered by user; each user's rows are gathered into one basket
+    private static final class BasketReader {
+
+        private final CoPurchaseGraph graph;
+        private final LocalDateTime countedUntil;
+        private final long[] items = new long[MAX_BASKET_SIZE];
+        private final boolean[] fresh = new boolean[MAX_BASKET_SIZE];
+        private long userId;
+        private int size;
+        private boolean overflowed;
+        private long users;
+
+        BasketReader(CoPurchaseGraph graph, LocalDateTime countedUntil) {
+            this.graph = graph;
+            this.countedUntil = countedUntil;
+        }
+
+        void read(ResultSet row) throws SQLException {
+            long rowUser = row.getLong(1);
+            if (rowUser != userId) {
+                flush();
+                userId = rowUser;
+            }
+            long item = Kind.values()[row.getInt(3)].item(row.getLong(2));
+            LocalDateTime createdAt = row.getObject(4, LocalDateTime.class);
+            boolean isFresh = countedUntil == null || createdAt != null && createdAt.isAfter(countedUntil);
+
+            for (int i = 0; i < size; i++) {
+                if (items[i] == item) {
+                    // Bought again: only new if every purchase of it is
+                    fresh[i] &= isFresh;
+                    return;
+                }
+            }
+            if (size == MAX_BASKET_SIZE) {
+                overflowed = true;
+                return;
+            }
+            items[size] = item;
+            fresh[size++] = isFresh;
+        }
+
+        void flush() {
+            if (size > 0 && !overflowed) {
+                graph.addBasket(items, fresh, size);
+                users++;
+            }
+            size = 0;
+            overflowed = false;
+        }
+    }
+}
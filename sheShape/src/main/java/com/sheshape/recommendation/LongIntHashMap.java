@@ -0,0 +1,98 @@
+package com.sheshape.recommendation;
+
+/**
+ * Open-addressing map from non-zero {@code long} keys to {@code int} counts,
+ * with linear probing over two parallel arrays: no boxing and no entry
+ * objects, about 12 bytes a key at the default load. Key 0 marks an empty
+ * slot. Not thread-safe.
+ */
+final class LongIntHashMap {
+
+    private static final float MAX_LOAD = 0.6f;
+
+    interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int resizeAt;
+
+    LongIntHashMap() {
+        this(8);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD)) - 1) << 1);
+    }
+
+    int get(long key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    /** Adds {@code delta} to the key's count (0 if absent) and returns the new count. */
+    int addTo(long key, int delta) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int slot = find(key);
+        if (keys[slot] == key) {
+            return values[slot] += delta;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > resizeAt) {
+            rehash();
+        }
+        return delta;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    // The key's slot, or the empty slot where it would go
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                int target = find(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+
+    // Ids are sequential, so spread them before masking (the 64-bit golden ratio)
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32);
+    }
+}
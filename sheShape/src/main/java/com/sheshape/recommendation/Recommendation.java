@@ -0,0 +1,21 @@
+package com.sheshape.recommendation;
+
+/**
+ * A program or plan bought together with the one asked about: how many users
+ * bought both, and that count relative to how many bought each (cosine, 0-1).
+ */
+public record Recommendation(Kind kind, long id, int coPurchases, double score) {
+
+    public enum Kind {
+        PROGRAM, NUTRITION_PLAN;
+
+        // Program and plan ids overlap, so the kind goes in the lowest bit
+        long item(long id) {
+            return id << 1 | ordinal();
+        }
+    }
+
+    static Recommendation of(long item, int coPurchases, double score) {
+        return new Recommendation(Kind.values()[(int) (item & 1)], item >>> 1, coPurchases, score);
+    }
+}
@@ -1,11 +1,16 @@
 package com.sheshape.repository;
 
 import com.sheshape.model.BlogPost;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,5 +24,44 @@ public interface BlogPostRepository extends JpaRepository<BlogPost, Long> {
     
     Page<BlogPost> findByCategoryAndIsPublishedTrue(String category, Pageable pageable);
     
-    Page<BlogPost> findByTitleContainingIgnoreCaseAndIsPublishedTrue(String keyword, Pageable pageable);
-}
\ No newline at end of file
+    // Walks the published posts in id order for the search index rebuild
+    @Query("SELECT p FROM BlogPost p WHERE p.isPublished = true AND p.id > :afterId ORDER BY p.id")
+    List<BlogPost> findPublishedForSearchIndex(@Param("afterId") Long afterId, Limit limit);
+
+    // Search hits come back as ids; load them with their authors in one statement
+    @EntityGraph(attributePaths = {"author", "author.profile"})
+    @Query("SELECT p FROM BlogPost p WHERE p.id IN :ids")
+    List<BlogPost> findAllWithAuthorByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Whether the query has any full-text match; decides between full-text and trigram search
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM blog_posts b WHERE b.is_published " +
+           "AND b.search_vector @@ websearch_to_tsquery('english', :query))", nativeQuery = true)
+    boolean existsFullTextMatch(@Param("query") String query);
+
+    // search.mode=postgres, same shape as the ProductRepository search queries
+    @Query(value = "SELECT b.id, count(*) OVER () FROM blog_posts b " +
+           "WHERE b.is_published AND b.search_vector @@ websearch_to_tsquery('english', :query) " +
+           "AND (CAST(:category AS text) IS NULL OR lower(b.category) = lower(CAST(:category AS text))) " +
+           "ORDER BY ts_rank(b.search_vector, websearch_to_tsquery('english', :query)) DESC, b.id " +
+           "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> searchFullText(@Param("query") String query, @Param("category") String category,
+                                  @Param("limit") int limit, @Param("offset") int offset);
+
+    @Query(value = "SELECT min(b.category), count(*) FROM blog_posts b " +
+           "WHERE b.is_published AND b.search_vector @@ websearch_to_tsquery('english', :query) " +
+           "GROUP BY lower(b.category) ORDER BY count(*) DESC, lower(b.category)", nativeQuery = true)
+    List<Object[]> countFullTextFacets(@Param("query") String query);
+
+    @Query(value = "SELECT b.id, count(*) OVER () FROM blog_posts b " +
+           "WHERE b.is_published AND b.title % :query " +
+           "AND (CAST(:category AS text) IS NULL OR lower(b.category) = lower(CAST(:category AS text))) " +
+           "ORDER BY similarity(b.title, :query) DESC, b.id " +
+           "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> searchSimilar(@Param("query") String query, @Param("category") String category,
+                                 @Param("limit") int limit, @Param("offset") int offset);
+
+    @Query(value = "SELECT min(b.category), count(*) FROM blog_posts b " +
+           "WHERE b.is_published AND b.title % :query " +
+           "GROUP BY lower(b.category) ORDER BY count(*) DESC, lower(b.category)", nativeQuery = true)
+    List<Object[]> countSimilarFacets(@Param("query") String query);
+}
@@ -1,10 +1,17 @@
 package com.sheshape.repository;
 
 import com.sheshape.model.GymProgram;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface GymProgramRepository extends JpaRepository<GymProgram, Long> {
@@ -16,4 +23,45 @@ public interface GymProgramRepository extends JpaRepository<GymProgram, Long> {
     List<GymProgram> findByTrainerIdAndIsActiveTrue(Long trainerId);
     
     List<GymProgram> findByDifficultyLevel(GymProgram.DifficultyLevel difficultyLevel);
+
+    /*
+     * Catalog queries: load everything GymProgramDto touches (trainer, the trainer's
+     * profile and authorities, sessions) in one statement instead of 2N+1.
+     */
+
+    @EntityGraph(attributePaths = {"trainer", "trainer.profile", "trainer.authorities", "sessions"})
+    @Query("SELECT p FROM GymProgram p WHERE p.isActive = true")
+    List<GymProgram> findActiveForCatalog();
+
+    @EntityGraph(attributePaths = {"trainer", "trainer.profile", "trainer.authorities", "sessions"})
+    @Query("SELECT p FROM GymProgram p")
+    List<GymProgram> findAllForCatalog();
+
+    @EntityGraph(attributePaths = {"trainer", "trainer.profile", "trainer.authorities", "sessions"})
+    @Query("SELECT p FROM GymProgram p WHERE p.id = :id")
+    Optional<GymProgram> findByIdForCatalog(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = {"trainer", "trainer.profile", "trainer.authorities", "sessions"})
+    @Query("SELECT p FROM GymProgram p WHERE p.trainer.id = :trainerId")
+    List<GymProgram> findByTrainerIdForCatalog(@Param("trainerId") Long trainerId);
+
+    /*
+     * Keyset pagination over (created_at DESC, id DESC). The seek query only reads
+     * ids so the limit is applied in SQL; the page is then loaded with the catalog
+     * graph, which can't be combined with a limit because it fetches collections.
+     */
+
+    @Query("SELECT p.id FROM GymProgram p WHERE p.isActive = true " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Long> findActiveIdsBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT p.id FROM GymProgram p " +
+           "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Long> findIdsBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"trainer", "trainer.profile", "trainer.authorities", "sessions"})
+    @Query("SELECT p FROM GymProgram p WHERE p.id IN :ids ORDER BY p.createdAt DESC, p.id DESC")
+    List<GymProgram> findByIdInForCatalog(@Param("ids") Collection<Long> ids);
 }
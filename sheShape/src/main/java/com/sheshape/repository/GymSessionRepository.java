@@ -2,6 +2,8 @@ package com.sheshape.repository;
 
 import com.sheshape.model.GymSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +14,7 @@ public interface GymSessionRepository extends JpaRepository<GymSession, Long> {
     List<GymSession> findByProgramId(Long programId);
 
     List<GymSession> findByProgramIdOrderBySessionOrderAsc(Long programId);
+
+    @Query("SELECT AVG(s.durationMinutes) FROM GymSession s WHERE s.program.id = :programId")
+    Double findAverageDurationMinutes(@Param("programId") Long programId);
 }
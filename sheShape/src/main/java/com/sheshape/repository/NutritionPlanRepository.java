@@ -1,9 +1,15 @@
 package com.sheshape.repository;
 
 import com.sheshape.model.NutritionPlan;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +20,23 @@ public interface NutritionPlanRepository extends JpaRepository<NutritionPlan, Lo
     List<NutritionPlan> findByIsActiveTrue();
     
     List<NutritionPlan> findByNutritionistIdAndIsActiveTrue(Long nutritionistId);
-}
\ No newline at end of file
+
+    /*
+     * Keyset pagination over (created_at DESC, id DESC): seek the page's ids with a
+     * SQL limit, then load those plans with the nutritionist in one statement.
+     */
+
+    @Query("SELECT p.id FROM NutritionPlan p WHERE p.isActive = true " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Long> findActiveIdsBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT p.id FROM NutritionPlan p " +
+           "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Long> findIdsBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"nutritionist", "nutritionist.profile", "nutritionist.authorities"})
+    @Query("SELECT p FROM NutritionPlan p WHERE p.id IN :ids ORDER BY p.createdAt DESC, p.id DESC")
+    List<NutritionPlan> findByIdInForCatalog(@Param("ids") Collection<Long> ids);
+}
@@ -3,12 +3,16 @@ package com.sheshape.repository;
 
 import com.sheshape.model.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+public interface ProductImageRepository extends JpaRepository<ProductImage, Long>, ProductImageRepositoryCustom {
     
     /**
      * Find all images for a specific product
@@ -17,6 +21,14 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
      */
     List<ProductImage> findByProductIdOrderByPositionAsc(Long productId);
     
+    /**
+     * Find the images of every product on a listing page in one query
+     * @param productIds The product IDs
+     * @return Images of all the products, each product's ordered by position
+     */
+    @Query("SELECT i FROM ProductImage i WHERE i.product.id IN :productIds ORDER BY i.product.id, i.position")
+    List<ProductImage> findByProductIdIn(@Param("productIds") Collection<Long> productIds);
+    
     /**
      * Find the main image for a product
      * @param productId The product ID
@@ -24,12 +36,50 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
      */
     ProductImage findByProductIdAndIsMainTrue(Long productId);
     
+    /**
+     * Find the IDs of all images of a product
+     * @param productId The product ID
+     * @return The image IDs
+     */
+    @Query("SELECT i.id FROM ProductImage i WHERE i.product.id = :productId")
+    List<Long> findIdsByProductId(@Param("productId") Long productId);
+    
+    /**
+     * Clear the main flag on every image of a product in one statement. Run it
+     * before flagging a new main image: on Postgres a partial unique index
+     * allows only one per product.
+     * @param productId The product ID
+     * @return The number of images updated
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductImage i SET i.isMain = false WHERE i.product.id = :productId AND i.isMain = true")
+    int clearMainImage(@Param("productId") Long productId);
+    
+    /**
+     * Flag one image of a product as main
+     * @param productId The product ID
+     * @param imageId The image ID
+     * @return 1, or 0 if the image doesn't belong to the product
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductImage i SET i.isMain = true WHERE i.id = :imageId AND i.product.id = :productId")
+    int markMainImage(@Param("productId") Long productId, @Param("imageId") Long imageId);
+    
     /**
      * Delete all images for a specific product
      * @param productId The product ID
      */
     void deleteByProductId(Long productId);
     
+    /**
+     * Delete the images of several products in one statement
+     * @param productIds The product IDs
+     * @return The number of images deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM ProductImage i WHERE i.product.id IN :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
+    
     /**
      * Count how many images a product has
      * @param productId The product ID
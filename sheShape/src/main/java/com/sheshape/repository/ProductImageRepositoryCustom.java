@@ -0,0 +1,15 @@
+package com.sheshape.repository;
+
+import java.util.Map;
+
+public interface ProductImageRepositoryCustom {
+
+    /**
+     * Moves images of one product to new positions in a single statement; ids
+     * that belong to another product are left alone.
+     * @param productId The product ID
+     * @param positions New position by image ID
+     * @return The number of images updated
+     */
+    int updatePositions(Long productId, Map<Long, Integer> positions);
+}
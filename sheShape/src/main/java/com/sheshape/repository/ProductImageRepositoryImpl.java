@@ -0,0 +1,43 @@
+package com.sheshape.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.Map;
+import java.util.StringJoiner;
+
+class ProductImageRepositoryImpl implements ProductImageRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updatePositions(Long productId, Map<Long, Integer> positions) {
+        if (positions.isEmpty()) {
+            return 0;
+        }
+
+        // One (id, position) row per image, joined against the table in one UPDATE ... FROM
+        StringJoiner rows = new StringJoiner(", ");
+        int parameter = 2;
+        for (int i = 0; i < positions.size(); i++) {
+            rows.add("(?" + parameter++ + ", ?" + parameter++ + ")");
+        }
+        Query update = entityManager.createNativeQuery("UPDATE product_images SET position = v.position "
+                + "FROM (VALUES " + rows + ") AS v(id, position) "
+                + "WHERE product_images.id = v.id AND product_images.product_id = ?1");
+
+        update.setParameter(1, productId);
+        parameter = 2;
+        for (Map.Entry<Long, Integer> position : positions.entrySet()) {
+            update.setParameter(parameter++, position.getKey());
+            update.setParameter(parameter++, position.getValue());
+        }
+
+        entityManager.flush();
+        int updated = update.executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+}
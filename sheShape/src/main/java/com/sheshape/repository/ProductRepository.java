@@ -1,14 +1,22 @@
 package com.sheshape.repository;
 
 import com.sheshape.model.Product;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -18,9 +26,84 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Updated method to find products by category using @Query
     @Query("SELECT DISTINCT p FROM Product p JOIN p.categories c WHERE c = :category AND p.isActive = true")
     Page<Product> findByCategoryAndIsActiveTrue(@Param("category") String category, Pageable pageable);
-    Page<Product> findByNameContainingIgnoreCaseAndIsActiveTrue(String keyword, Pageable pageable);
 
-    // Updated method to include category check in query
-    @Query("SELECT p FROM Product p JOIN p.categories c WHERE p.isActive = true AND p.inventoryCount > :minInventory GROUP BY p")
-    List<Product> findByIsActiveTrueAndInventoryCountGreaterThan(int minInventory);
-}
\ No newline at end of file
+    // Categories of every product on a listing page in one query, as [product id, category] rows
+    @Query("SELECT p.id, c FROM Product p JOIN p.categories c WHERE p.id IN :ids")
+    List<Object[]> findCategoriesByProductIdIn(@Param("ids") Collection<Long> ids);
+
+    // Walks in-stock product ids in id order for the InStockIndex rebuild, categories loaded
+    // per batch by findWithCategoriesByIdIn; on Postgres the predicate matches the partial
+    // index idx_products_in_stock (see PostgresSchema)
+    @Query("SELECT p.id FROM Product p WHERE p.isActive = true AND p.inventoryCount > 0 AND p.id > :afterId ORDER BY p.id")
+    List<Long> findInStockIdsForIndex(@Param("afterId") Long afterId, Limit limit);
+
+    // Atomic check-and-decrement: updates nothing (returns 0) when stock is short.
+    // Bulk updates bypass @Version, so both bump it to fail concurrent load-then-save edits.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.inventoryCount = p.inventoryCount - :quantity, p.updatedAt = :now, " +
+           "p.version = p.version + 1 " +
+           "WHERE p.id = :id AND p.inventoryCount >= :quantity")
+    int decrementInventory(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.inventoryCount = p.inventoryCount + :quantity, p.updatedAt = :now, " +
+           "p.version = p.version + 1 WHERE p.id = :id")
+    int incrementInventory(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    @Query("SELECT p.inventoryCount FROM Product p WHERE p.id = :id")
+    Optional<Integer> findInventoryCountById(@Param("id") Long id);
+
+    // Row-locks the product until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    // Walks the active catalog in id order for the search index rebuild. Only ids: a limit
+    // on a query that fetches categories would be applied in memory, not in SQL
+    @Query("SELECT p.id FROM Product p WHERE p.isActive = true AND p.id > :afterId ORDER BY p.id")
+    List<Long> findActiveIdsForSearchIndex(@Param("afterId") Long afterId, Limit limit);
+
+    // A batch of products with their categories, for the index rebuilds
+    @EntityGraph(attributePaths = "categories")
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findWithCategoriesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Whether the query has any full-text match; decides between full-text and trigram search
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM products p WHERE p.is_active " +
+           "AND p.search_vector @@ websearch_to_tsquery('english', :query))", nativeQuery = true)
+    boolean existsFullTextMatch(@Param("query") String query);
+
+    // search.mode=postgres (see PostgresSearchSchema). Rows are [id, total matches]; the
+    // window count saves a second query. CASTs type the nullable category for Postgres.
+    // Categories compare case-insensitively in the filter and the facet counts alike.
+    @Query(value = "SELECT p.id, count(*) OVER () FROM products p " +
+           "WHERE p.is_active AND p.search_vector @@ websearch_to_tsquery('english', :query) " +
+           "AND (CAST(:category AS text) IS NULL OR EXISTS (SELECT 1 FROM product_categories c " +
+           "WHERE c.product_id = p.id AND lower(c.category) = lower(CAST(:category AS text)))) " +
+           "ORDER BY ts_rank(p.search_vector, websearch_to_tsquery('english', :query)) DESC, p.id " +
+           "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> searchFullText(@Param("query") String query, @Param("category") String category,
+                                  @Param("limit") int limit, @Param("offset") int offset);
+
+    @Query(value = "SELECT min(c.category), count(DISTINCT p.id) FROM products p " +
+           "JOIN product_categories c ON c.product_id = p.id " +
+           "WHERE p.is_active AND p.search_vector @@ websearch_to_tsquery('english', :query) " +
+           "GROUP BY lower(c.category) ORDER BY count(DISTINCT p.id) DESC, lower(c.category)", nativeQuery = true)
+    List<Object[]> countFullTextFacets(@Param("query") String query);
+
+    // Typo fallback: trigram similarity on the name, served by the gin_trgm_ops index
+    @Query(value = "SELECT p.id, count(*) OVER () FROM products p " +
+           "WHERE p.is_active AND p.name % :query " +
+           "AND (CAST(:category AS text) IS NULL OR EXISTS (SELECT 1 FROM product_categories c " +
+           "WHERE c.product_id = p.id AND lower(c.category) = lower(CAST(:category AS text)))) " +
+           "ORDER BY similarity(p.name, :query) DESC, p.id " +
+           "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> searchSimilar(@Param("query") String query, @Param("category") String category,
+                                 @Param("limit") int limit, @Param("offset") int offset);
+
+    @Query(value = "SELECT min(c.category), count(DISTINCT p.id) FROM products p " +
+           "JOIN product_categories c ON c.product_id = p.id " +
+           "WHERE p.is_active AND p.name % :query " +
+           "GROUP BY lower(c.category) ORDER BY count(DISTINCT p.id) DESC, lower(c.category)", nativeQuery = true)
+    List<Object[]> countSimilarFacets(@Param("query") String query);
+}
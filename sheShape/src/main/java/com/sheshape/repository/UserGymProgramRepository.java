@@ -1,11 +1,19 @@
 package com.sheshape.repository;
 
+import com.sheshape.dto.ProgramEnrollmentDto;
 import com.sheshape.model.UserGymProgram;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserGymProgramRepository extends JpaRepository<UserGymProgram, Long> {
@@ -19,4 +27,26 @@ public interface UserGymProgramRepository extends JpaRepository<UserGymProgram,
     List<UserGymProgram> findByUserIdAndStatus(Long userId, UserGymProgram.Status status);
 
     List<UserGymProgram> findByProgramIdAndStatus(Long programId, UserGymProgram.Status status);
+
+    @Query("SELECT ugp.user.id FROM UserGymProgram ugp WHERE ugp.program.id = :programId")
+    Set<Long> findUserIdsByProgramId(@Param("programId") Long programId);
+
+    // A batch of overdue enrollments for EnrollmentExpiry. SKIP LOCKED leaves rows another
+    // node's sweep has claimed, so concurrent sweeps take disjoint batches.
+    @Modifying
+    @Query(value = "UPDATE user_gym_programs SET status = 'EXPIRED', updated_at = :now, version = version + 1 " +
+                   "WHERE id IN (SELECT id FROM user_gym_programs WHERE status = 'ACTIVE' AND expiry_date <= :now " +
+                   "ORDER BY expiry_date LIMIT :batchSize FOR UPDATE SKIP LOCKED)",
+           nativeQuery = true)
+    int expireDue(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+
+    @Query("SELECT MIN(ugp.expiryDate) FROM UserGymProgram ugp WHERE ugp.status = 'ACTIVE' AND ugp.expiryDate <= :now")
+    Optional<LocalDateTime> findOldestOverdueExpiry(@Param("now") LocalDateTime now);
+
+    // Roster page straight from user_gym_programs; user and program are never joined
+    @Query(value = "SELECT new com.sheshape.dto.ProgramEnrollmentDto(" +
+                   "ugp.id, ugp.user.id, ugp.program.id, ugp.status, ugp.purchaseDate, ugp.expiryDate, ugp.lastWatchedSessionId) " +
+                   "FROM UserGymProgram ugp WHERE ugp.program.id = :programId",
+           countQuery = "SELECT COUNT(ugp) FROM UserGymProgram ugp WHERE ugp.program.id = :programId")
+    Page<ProgramEnrollmentDto> findEnrollmentsByProgramId(@Param("programId") Long programId, Pageable pageable);
 }
@@ -2,8 +2,12 @@ package com.sheshape.repository;
 
 import com.sheshape.model.UserNutritionPlan;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +23,15 @@ public interface UserNutritionPlanRepository extends JpaRepository<UserNutrition
     List<UserNutritionPlan> findByUserIdAndStatus(Long userId, UserNutritionPlan.Status status);
     
     List<UserNutritionPlan> findByPlanIdAndStatus(Long planId, UserNutritionPlan.Status status);
+
+    // Same sweep as UserGymProgramRepository.expireDue
+    @Modifying
+    @Query(value = "UPDATE user_nutrition_plans SET status = 'EXPIRED', updated_at = :now, version = version + 1 " +
+                   "WHERE id IN (SELECT id FROM user_nutrition_plans WHERE status = 'ACTIVE' AND expiry_date <= :now " +
+                   "ORDER BY expiry_date LIMIT :batchSize FOR UPDATE SKIP LOCKED)",
+           nativeQuery = true)
+    int expireDue(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+
+    @Query("SELECT MIN(unp.expiryDate) FROM UserNutritionPlan unp WHERE unp.status = 'ACTIVE' AND unp.expiryDate <= :now")
+    Optional<LocalDateTime> findOldestOverdueExpiry(@Param("now") LocalDateTime now);
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package com.sheshape.repository;
 
 import com.sheshape.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +26,23 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     List<User> findByIsActiveTrue();
     Optional<User> findByUsernameOrEmail(String username, String email);
+
+    // Batch load for UserDto mapping: profile and authorities in the same statement
+    @EntityGraph(attributePaths = {"profile", "authorities"})
+    @Query("SELECT u FROM User u WHERE u.id IN :ids")
+    List<User> findAllWithProfileByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.id AS id, u.accountVersion AS accountVersion, u.isActive AS isActive FROM User u")
+    List<AccountState> findAllAccountStates();
+
+    @Query("SELECT u.id AS id, u.accountVersion AS accountVersion, u.isActive AS isActive " +
+           "FROM User u WHERE u.updatedAt >= :since")
+    List<AccountState> findAccountStatesUpdatedSince(@Param("since") LocalDateTime since);
+
+    // Minimal projection used to check stateless tokens for revocation
+    interface AccountState {
+        Long getId();
+        Long getAccountVersion();
+        Boolean getIsActive();
+    }
 }
\ No newline at end of file
@@ -3,11 +3,14 @@ package com.sheshape.repository.profile;
 import com.sheshape.model.profile.FitnessProfile;
 import com.sheshape.model.profile.FitnessProfile.FitnessLevel;
 import com.sheshape.model.profile.FitnessProfile.FitnessGoal;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.DayOfWeek;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +23,10 @@ public interface FitnessProfileRepository extends JpaRepository<FitnessProfile,
 
     void deleteByUserId(Long userId);
 
+    // Keyset batches for rebuilding ClientMatchIndex
+    @Query("SELECT fp FROM FitnessProfile fp WHERE fp.id > :afterId ORDER BY fp.id")
+    List<FitnessProfile> findForMatchIndex(@Param("afterId") Long afterId, Limit limit);
+
     @Query("SELECT fp FROM FitnessProfile fp WHERE fp.fitnessLevel = :level")
     List<FitnessProfile> findByFitnessLevel(@Param("level") FitnessLevel level);
 
@@ -39,4 +46,24 @@ public interface FitnessProfileRepository extends JpaRepository<FitnessProfile,
 
     @Query("SELECT fp FROM FitnessProfile fp WHERE fp.workoutDuration = :duration")
     List<FitnessProfile> findByWorkoutDuration(@Param("duration") Integer duration);
+
+    // Array filters are native: @> and && are what the GIN indexes in PostgresSchema serve (Postgres only)
+    @Query(value = "SELECT * FROM fitness_profiles fp WHERE fp.primary_goal = :goal "
+            + "AND fp.preferred_workout_days @> CAST(ARRAY[:day] AS varchar[])", nativeQuery = true)
+    List<FitnessProfile> findByPrimaryGoalAndWorkoutDay(@Param("goal") String goal, @Param("day") String day);
+
+    /** Users whose goal is {@code goal} and who like to train on {@code day}. */
+    default List<FitnessProfile> findByPrimaryGoalAndWorkoutDay(FitnessGoal goal, DayOfWeek day) {
+        return findByPrimaryGoalAndWorkoutDay(goal.name(), FitnessProfile.dayName(day));
+    }
+
+    /** Users who do any of the given activity types. */
+    @Query(value = "SELECT * FROM fitness_profiles fp "
+            + "WHERE fp.preferred_activity_types && CAST(ARRAY[:activityTypes] AS varchar[])", nativeQuery = true)
+    List<FitnessProfile> findByAnyActivityType(@Param("activityTypes") Collection<String> activityTypes);
+
+    /** Users who train on all of the given days. */
+    @Query(value = "SELECT * FROM fitness_profiles fp "
+            + "WHERE fp.preferred_workout_days @> CAST(ARRAY[:days] AS varchar[])", nativeQuery = true)
+    List<FitnessProfile> findByAllWorkoutDays(@Param("days") Collection<String> days);
 }
\ No newline at end of file
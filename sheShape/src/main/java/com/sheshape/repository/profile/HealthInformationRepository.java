@@ -18,12 +18,18 @@ public interface HealthInformationRepository extends JpaRepository<HealthInforma
     
     void deleteByUserId(Long userId);
     
-    @Query("SELECT hi FROM HealthInformation hi WHERE hi.dietaryRestrictionsRaw IS NOT NULL AND hi.dietaryRestrictionsRaw != ''")
+    // Empty lists are stored as NULL
+    @Query("SELECT hi FROM HealthInformation hi WHERE hi.dietaryRestrictions IS NOT NULL")
     List<HealthInformation> findUsersWithDietaryRestrictions();
     
-    @Query("SELECT hi FROM HealthInformation hi WHERE hi.healthConditionsRaw IS NOT NULL AND hi.healthConditionsRaw != ''")
+    @Query("SELECT hi FROM HealthInformation hi WHERE hi.healthConditions IS NOT NULL")
     List<HealthInformation> findUsersWithHealthConditions();
     
+    // Served by the GIN index on dietary_restrictions (Postgres only)
+    @Query(value = "SELECT * FROM health_information hi "
+            + "WHERE hi.dietary_restrictions @> CAST(ARRAY[:restriction] AS varchar[])", nativeQuery = true)
+    List<HealthInformation> findByDietaryRestriction(@Param("restriction") String restriction);
+    
     @Query("SELECT hi FROM HealthInformation hi WHERE hi.emergencyContactName IS NOT NULL")
     List<HealthInformation> findUsersWithEmergencyContact();
 }
\ No newline at end of file
@@ -18,4 +18,15 @@ public interface ProfileRepository extends JpaRepository<Profile, Long> {
     Optional<Profile> findByUserIdWithUser(@Param("userId") Long userId);
     
     boolean existsByUserId(Long userId);
+    
+    // Outer joins on user_id: one round-trip instead of one per section
+    @Query("SELECT new com.sheshape.repository.profile.ProfileSections(u.profileCompleted, p, pa, fp, hi, up) "
+            + "FROM User u "
+            + "LEFT JOIN Profile p ON p.user.id = u.id "
+            + "LEFT JOIN PhysicalAttributes pa ON pa.userId = u.id "
+            + "LEFT JOIN FitnessProfile fp ON fp.userId = u.id "
+            + "LEFT JOIN HealthInformation hi ON hi.userId = u.id "
+            + "LEFT JOIN UserPreferences up ON up.userId = u.id "
+            + "WHERE u.id = :userId")
+    Optional<ProfileSections> findSectionsByUserId(@Param("userId") Long userId);
 }
\ No newline at end of file
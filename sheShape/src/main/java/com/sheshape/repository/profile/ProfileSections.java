@@ -0,0 +1,19 @@
+package com.sheshape.repository.profile;
+
+import com.sheshape.model.profile.FitnessProfile;
+import com.sheshape.model.profile.HealthInformation;
+import com.sheshape.model.profile.PhysicalAttributes;
+import com.sheshape.model.profile.Profile;
+import com.sheshape.model.profile.UserPreferences;
+
+/**
+ * Every section of a user's profile, read in one statement. Sections the user
+ * hasn't filled in are null.
+ */
+public record ProfileSections(Boolean profileCompleted,
+                              Profile profile,
+                              PhysicalAttributes physicalAttributes,
+                              FitnessProfile fitnessProfile,
+                              HealthInformation healthInformation,
+                              UserPreferences userPreferences) {
+}
@@ -0,0 +1,22 @@
+package com.sheshape.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the method in a fresh transaction when it loses an optimistic-lock
+ * race. Only for methods that are safe to repeat: each attempt reloads the
+ * entity and reapplies the same change.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    int maxAttempts() default 3;
+
+    long backoffMillis() default 20;
+}
@@ -0,0 +1,86 @@
+package com.sheshape.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries {@link RetryOnConflict} methods on optimistic-lock failures. Ordered
+ * ahead of the transaction interceptor so every attempt gets its own transaction;
+ * when already inside a caller's transaction it doesn't retry, since that
+ * transaction is rolled back either way. Conflicts are counted as
+ * {@code db.optimistic_lock.conflicts} tagged by entity and outcome.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RetryOnConflictAspect {
+
+    static final String CONFLICTS_METER = "db.optimistic_lock.conflicts";
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryOnConflictAspect.class);
+
+    private final MeterRegistry meterRegistry;
+
+    public RetryOnConflictAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                String entity = entityOf(e);
+                if (attempt >= retryOnConflict.maxAttempts()) {
+                    conflicts(entity, "exhausted").increment();
+                    logger.warn("Giving up on {} after {} optimistic lock conflicts on {} {}",
+                            joinPoint.getSignature().toShortString(), attempt, entity, identifierOf(e));
+                    throw e;
+                }
+
+                conflicts(entity, "retried").increment();
+                // Jittered linear backoff so the losers don't collide again
+                long backoff = retryOnConflict.backoffMillis() * attempt;
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1));
+            }
+        }
+    }
+
+    private Counter conflicts(String entity, String outcome) {
+        return Counter.builder(CONFLICTS_METER)
+                .description("Optimistic lock conflicts on retryable service methods")
+                .tag("entity", entity)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String entityOf(OptimisticLockingFailureException e) {
+        if (e instanceof ObjectOptimisticLockingFailureException failure && failure.getPersistentClassName() != null) {
+            String className = failure.getPersistentClassName();
+            return className.substring(className.lastIndexOf('.') + 1);
+        }
+        return "unknown";
+    }
+
+    private static Object identifierOf(OptimisticLockingFailureException e) {
+        return e instanceof ObjectOptimisticLockingFailureException failure ? failure.getIdentifier() : null;
+    }
+}
@@ -0,0 +1,146 @@
+package com.sheshape.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns text into index terms: lower-cased alphanumeric runs, stop words
+ * dropped, each reduced by a light Porter-style stemmer so "running", "runs"
+ * and "run" land on the same term. Queries and documents go through the same
+ * steps, so the stems only need to be consistent, not linguistically exact.
+ */
+final class Analyzer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "if", "in", "into",
+            "is", "it", "its", "no", "not", "of", "on", "or", "so", "such", "that", "the", "their",
+            "then", "there", "these", "they", "this", "to", "was", "will", "with", "you", "your");
+
+    // Stems never get shorter than this, so short words aren't reduced to noise
+    private static final int MIN_STEM = 3;
+
+    private static final String[][] SUFFIXES = {
+            {"ational", "ate"}, {"tional", "tion"}, {"ization", "ize"}, {"fulness", "ful"},
+            {"ousness", "ous"}, {"iveness", "ive"}, {"ement", ""}, {"ment", ""}, {"ness", ""},
+            {"ance", ""}, {"ence", ""}, {"able", ""}, {"ible", ""}, {"ant", ""}, {"ent", ""},
+            {"ful", ""}, {"ous", ""}, {"ive", ""}, {"ize", ""}, {"ise", ""}, {"ity", ""},
+            {"al", ""}, {"er", ""}, {"ic", ""}};
+
+    private Analyzer() {
+    }
+
+    /** Stemmed terms of {@code text}, in order, duplicates kept. */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokens(text)) {
+            terms.add(stem(token));
+        }
+        return terms;
+    }
+
+    /** Lower-cased tokens of {@code text} with stop words removed, not yet stemmed. */
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = lower.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    static String stem(String word) {
+        if (word.length() <= MIN_STEM || !Character.isLetter(word.charAt(0))) {
+            return word;
+        }
+
+        String stem = plural(word);
+        stem = verbEnding(stem);
+        if (stem.endsWith("y") && stem.length() > MIN_STEM && hasVowel(stem, stem.length() - 1)) {
+            stem = stem.substring(0, stem.length() - 1) + "i";
+        }
+
+        for (String[] rule : SUFFIXES) {
+            if (stem.endsWith(rule[0])) {
+                String base = stem.substring(0, stem.length() - rule[0].length());
+                if (base.length() + rule[1].length() >= MIN_STEM + 1) {
+                    stem = base + rule[1];
+                }
+                break;
+            }
+        }
+
+        if (stem.endsWith("e") && stem.length() > MIN_STEM + 1) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        return stem;
+    }
+
+    private static String plural(String word) {
+        if (word.endsWith("sses")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("ies")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static String verbEnding(String word) {
+        String base;
+        if (word.endsWith("eed")) {
+            return word.substring(0, word.length() - 1);
+        } else if (word.endsWith("ing")) {
+            base = word.substring(0, word.length() - 3);
+        } else if (word.endsWith("ed")) {
+            base = word.substring(0, word.length() - 2);
+        } else {
+            return word;
+        }
+
+        if (base.length() < MIN_STEM || !hasVowel(base, base.length())) {
+            return word;
+        }
+        // "running" -> "run", but keep "ll", "ss" and "zz" ("rolled" -> "roll")
+        int last = base.length() - 1;
+        char c = base.charAt(last);
+        if (base.charAt(last - 1) == c && !isVowel(c) && c != 'l' && c != 's' && c != 'z') {
+            return base.substring(0, last);
+        }
+        if (base.endsWith("at") || base.endsWith("bl") || base.endsWith("iz")) {
+            return base + "e";
+        }
+        return base;
+    }
+
+    private static boolean hasVowel(String word, int end) {
+        for (int i = 0; i < end; i++) {
+            if (isVowel(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
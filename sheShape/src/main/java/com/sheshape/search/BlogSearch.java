@@ -0,0 +1,17 @@
+package com.sheshape.search;
+
+import com.sheshape.model.BlogPost;
+
+/**
+ * Full-text search over published blog posts, faceted by category. Backend
+ * chosen with {@code search.mode}, like {@link ProductSearch}.
+ */
+public interface BlogSearch {
+
+    SearchResult search(String query, String category, int offset, int limit);
+
+    /** Called inside the writing transaction after the post was saved. */
+    void postChanged(BlogPost post);
+
+    void postRemoved(Long id);
+}
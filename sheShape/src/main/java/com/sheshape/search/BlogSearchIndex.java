@@ -0,0 +1,99 @@
+package com.sheshape.search;
+
+import com.sheshape.model.BlogPost;
+import com.sheshape.repository.BlogPostRepository;
+import com.sheshape.security.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text index over published blog posts: title, category and content, with
+ * the category as the facet. Rebuilt at startup, updated by the blog service.
+ */
+@Component
+@ConditionalOnProperty(name = "search.mode", havingValue = "memory", matchIfMissing = true)
+public class BlogSearchIndex implements BlogSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlogSearchIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 200;
+
+    private final BlogPostRepository blogPostRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final InvertedIndex index = new InvertedIndex(Map.of(
+            "title", 3f,
+            "category", 2f,
+            "content", 1f));
+
+    public BlogSearchIndex(BlogPostRepository blogPostRepository, PlatformTransactionManager transactionManager) {
+        this.blogPostRepository = blogPostRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public SearchResult search(String query, String category, int offset, int limit) {
+        return index.search(query, category, offset, limit);
+    }
+
+    /** Reindexes the post once the current transaction commits; unpublished posts drop out. */
+    @Override
+    public void postChanged(BlogPost post) {
+        Long id = post.getId();
+        SearchDocument document = Boolean.TRUE.equals(post.getIsPublished()) ? toDocument(post) : null;
+        AfterCommit.run(() -> {
+            if (document != null) {
+                index.index(document);
+            } else {
+                index.remove(id);
+            }
+        });
+    }
+
+    @Override
+    public void postRemoved(Long id) {
+        AfterCommit.run(() -> index.remove(id));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        index.beginRebuild();
+        try {
+            long afterId = 0;
+            List<SearchDocument> batch;
+            do {
+                long from = afterId;
+                batch = readOnlyTransaction.execute(status ->
+                        blogPostRepository.findPublishedForSearchIndex(from, Limit.of(REBUILD_BATCH_SIZE)).stream()
+                                .map(BlogSearchIndex::toDocument)
+                                .toList());
+                index.rebuildBatch(batch);
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).id();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } finally {
+            index.endRebuild();
+        }
+        logger.info("Indexed {} blog posts for search in {} ms", index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static SearchDocument toDocument(BlogPost post) {
+        return new SearchDocument(post.getId(),
+                Map.of("title", post.getTitle(),
+                        "category", post.getCategory(),
+                        "content", post.getContent()),
+                List.of(post.getCategory()));
+    }
+}
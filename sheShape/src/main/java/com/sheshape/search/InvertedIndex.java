@@ -0,0 +1,306 @@
+package com.sheshape.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index with BM25 ranking. Field text is analyzed into stems
+ * and each occurrence counts with its field's weight, so a match in a name
+ * outranks the same match in a description. Every query term must match
+ * (AND); the last one also matches as a prefix, for search-as-you-type.
+ * Thread-safe: searches share a read lock, writes take the write lock.
+ */
+public class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Prefix expansions score at a discount and are capped to the most common terms
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MAX_EXPANSIONS = 32;
+    private static final int MIN_PREFIX = 2;
+    // How much longer than a stem a partly typed word may be ("trainin" -> "train")
+    private static final int MAX_PARTIAL_OVERHANG = 3;
+    private static final int MIN_PARTIAL_STEM = 3;
+
+    private final Map<String, Float> fieldWeights;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (document id -> weighted term frequency)
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private double totalLength;
+
+    // While rebuilding: ids the rebuild has indexed, and ids live writes touched
+    // (which the rebuild's possibly older rows must not overwrite)
+    private Set<Long> rebuildSeen;
+    private Set<Long> rebuildTouched;
+
+    public InvertedIndex(Map<String, Float> fieldWeights) {
+        this.fieldWeights = Map.copyOf(fieldWeights);
+    }
+
+    /** Adds the document, replacing any earlier version of it. */
+    public void index(SearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            if (rebuildTouched != null) {
+                rebuildTouched.add(document.id());
+            }
+            put(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (rebuildTouched != null) {
+                rebuildTouched.add(id);
+            }
+            delete(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts reloading the index from the source of truth. The current contents
+     * stay searchable; {@link #endRebuild()} drops whatever the reload didn't see.
+     */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuildSeen = new HashSet<>();
+            rebuildTouched = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rebuildBatch(Collection<SearchDocument> documents) {
+        lock.writeLock().lock();
+        try {
+            for (SearchDocument document : documents) {
+                rebuildSeen.add(document.id());
+                if (!rebuildTouched.contains(document.id())) {
+                    put(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endRebuild() {
+        lock.writeLock().lock();
+        try {
+            List<Long> stale = docs.keySet().stream()
+                    .filter(id -> !rebuildSeen.contains(id) && !rebuildTouched.contains(id))
+                    .toList();
+            stale.forEach(this::delete);
+            rebuildSeen = null;
+            rebuildTouched = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks the documents matching every term of {@code query}. When {@code facet}
+     * is set only documents carrying it (case-insensitively) are returned, but the
+     * facet counts still cover all matches so the other values stay selectable.
+     */
+    public SearchResult search(String query, String facet, int offset, int limit) {
+        List<String> tokens = Analyzer.tokens(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return SearchResult.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (docs.isEmpty()) {
+                return SearchResult.empty();
+            }
+            double averageLength = totalLength / docs.size();
+
+            Map<Long, Double> scores = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                Map<Long, Double> tokenScores = scoreToken(tokens.get(i), i == tokens.size() - 1, averageLength);
+                scores = scores == null ? tokenScores : intersect(scores, tokenScores);
+                if (scores.isEmpty()) {
+                    return SearchResult.empty();
+                }
+            }
+
+            Map<String, Long> facetCounts = new HashMap<>();
+            List<Map.Entry<Long, Double>> matches = new ArrayList<>();
+            for (Map.Entry<Long, Double> match : scores.entrySet()) {
+                List<String> documentFacets = docs.get(match.getKey()).facets();
+                documentFacets.forEach(value -> facetCounts.merge(value, 1L, Long::sum));
+                if (facet == null || documentFacets.stream().anyMatch(facet::equalsIgnoreCase)) {
+                    matches.add(match);
+                }
+            }
+
+            return new SearchResult(top(matches, offset, limit), matches.size(), sortByCount(facetCounts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best score per document over the token's exact stem and its expansions
+    private Map<Long, Double> scoreToken(String token, boolean last, double averageLength) {
+        String stem = Analyzer.stem(token);
+        Map<Long, Double> scores = new HashMap<>();
+        addScores(stem, 1.0, averageLength, scores);
+
+        if (last && token.length() >= MIN_PREFIX) {
+            for (String term : expansions(token, stem)) {
+                addScores(term, PREFIX_WEIGHT, averageLength, scores);
+            }
+        }
+        return scores;
+    }
+
+    private List<String> expansions(String token, String stem) {
+        Set<String> terms = new HashSet<>(postings.subMap(token, true, token + Character.MAX_VALUE, false).keySet());
+        // The word may be cut off past the end of its stem
+        for (int length = token.length() - 1; length >= Math.max(MIN_PARTIAL_STEM, token.length() - MAX_PARTIAL_OVERHANG); length--) {
+            String candidate = token.substring(0, length);
+            if (postings.containsKey(candidate)) {
+                terms.add(candidate);
+            }
+        }
+        terms.remove(stem);
+
+        return terms.stream()
+                .sorted(Comparator.comparingInt((String term) -> postings.get(term).size()).reversed())
+                .limit(MAX_EXPANSIONS)
+                .toList();
+    }
+
+    private void addScores(String term, double weight, double averageLength, Map<Long, Double> scores) {
+        Map<Long, Float> postingList = postings.get(term);
+        if (postingList == null) {
+            return;
+        }
+
+        int documentCount = docs.size();
+        double idf = Math.log(1 + (documentCount - postingList.size() + 0.5) / (postingList.size() + 0.5));
+        for (Map.Entry<Long, Float> posting : postingList.entrySet()) {
+            double tf = posting.getValue();
+            double norm = K1 * (1 - B + B * docs.get(posting.getKey()).length() / averageLength);
+            double score = weight * idf * tf * (K1 + 1) / (tf + norm);
+            scores.merge(posting.getKey(), score, Math::max);
+        }
+    }
+
+    private static Map<Long, Double> intersect(Map<Long, Double> scores, Map<Long, Double> tokenScores) {
+        Map<Long, Double> smaller = scores.size() <= tokenScores.size() ? scores : tokenScores;
+        Map<Long, Double> larger = smaller == scores ? tokenScores : scores;
+
+        Map<Long, Double> both = new HashMap<>();
+        smaller.forEach((id, score) -> {
+            Double other = larger.get(id);
+            if (other != null) {
+                both.put(id, score + other);
+            }
+        });
+        return both;
+    }
+
+    // Keeps only offset + limit entries in a min-heap instead of sorting every match
+    private static List<Long> top(List<Map.Entry<Long, Double>> matches, int offset, int limit) {
+        int keep = offset + limit;
+        Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(ranking);
+        for (Map.Entry<Long, Double> match : matches) {
+            heap.offer(match);
+            if (heap.size() > keep) {
+                heap.poll();
+            }
+        }
+
+        List<Long> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll().getKey());
+        }
+        Collections.reverse(ranked);
+        return offset >= ranked.size() ? List.of() : List.copyOf(ranked.subList(offset, ranked.size()));
+    }
+
+    private static Map<String, Long> sortByCount(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    private void put(SearchDocument document) {
+        delete(document.id());
+
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = 0;
+        for (Map.Entry<String, String> field : document.fields().entrySet()) {
+            float weight = fieldWeights.getOrDefault(field.getKey(), 1f);
+            for (String term : Analyzer.terms(field.getValue())) {
+                frequencies.merge(term, weight, Float::sum);
+                length += weight;
+            }
+        }
+        if (frequencies.isEmpty()) {
+            return;
+        }
+
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), frequency));
+        List<String> facets = document.facets() == null ? List.of() : List.copyOf(document.facets());
+        docs.put(document.id(), new Doc(length, frequencies.keySet().toArray(String[]::new), facets));
+        totalLength += length;
+    }
+
+    private void delete(Long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+
+        for (String term : doc.terms()) {
+            Map<Long, Float> postingList = postings.get(term);
+            postingList.remove(id);
+            if (postingList.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= doc.length();
+    }
+
+    private record Doc(float length, String[] terms, List<String> facets) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.sheshape.search;
+
+import com.sheshape.model.BlogPost;
+import com.sheshape.repository.BlogPostRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Blog search served by Postgres, with the same full-text-then-trigram strategy
+ * as {@link PostgresProductSearch} (trigrams on the title).
+ */
+@Component
+@ConditionalOnProperty(name = "search.mode", havingValue = "postgres")
+public class PostgresBlogSearch implements BlogSearch {
+
+    private final BlogPostRepository blogPostRepository;
+
+    public PostgresBlogSearch(BlogPostRepository blogPostRepository, PostgresSearchSchema schema) {
+        this.blogPostRepository = blogPostRepository;
+    }
+
+    @Override
+    public SearchResult search(String query, String category, int offset, int limit) {
+        if (query == null || query.isBlank() || limit <= 0) {
+            return SearchResult.empty();
+        }
+
+        if (blogPostRepository.existsFullTextMatch(query)) {
+            return SearchResult.fromPage((pageLimit, pageOffset) ->
+                            blogPostRepository.searchFullText(query, category, pageLimit, pageOffset),
+                    offset, limit, () -> blogPostRepository.countFullTextFacets(query));
+        }
+        return SearchResult.fromPage((pageLimit, pageOffset) ->
+                        blogPostRepository.searchSimilar(query, category, pageLimit, pageOffset),
+                offset, limit, () -> blogPostRepository.countSimilarFacets(query));
+    }
+
+    @Override
+    public void postChanged(BlogPost post) {
+    }
+
+    @Override
+    public void postRemoved(Long id) {
+    }
+}
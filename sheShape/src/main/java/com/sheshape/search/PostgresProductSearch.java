@@ -0,0 +1,52 @@
+package com.sheshape.search;
+
+import com.sheshape.model.Product;
+import com.sheshape.repository.ProductRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Product search served by Postgres: {@code websearch_to_tsquery} over the
+ * generated {@code search_vector}, ranked with {@code ts_rank}. When the query
+ * matches nothing at all (usually a typo) it falls back to trigram similarity
+ * on the name.
+ * The database keeps the vector current, so writes need no hook.
+ */
+@Component
+@ConditionalOnProperty(name = "search.mode", havingValue = "postgres")
+public class PostgresProductSearch implements ProductSearch {
+
+    private final ProductRepository productRepository;
+
+    // Takes the schema so its columns and indexes exist before the first query
+    public PostgresProductSearch(ProductRepository productRepository, PostgresSearchSchema schema) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public SearchResult search(String query, String category, int offset, int limit) {
+        if (query == null || query.isBlank() || limit <= 0) {
+            return SearchResult.empty();
+        }
+
+        // Chosen on whether the query matches anything at all, not on this page or category,
+        // so every page and facet of one query comes from the same ranking
+        if (productRepository.existsFullTextMatch(query)) {
+            return SearchResult.fromPage((pageLimit, pageOffset) ->
+                            productRepository.searchFullText(query, category, pageLimit, pageOffset),
+                    offset, limit, () -> productRepository.countFullTextFacets(query));
+        }
+        return SearchResult.fromPage((pageLimit, pageOffset) ->
+                        productRepository.searchSimilar(query, category, pageLimit, pageOffset),
+                offset, limit, () -> productRepository.countSimilarFacets(query));
+    }
+
+    @Override
+    public void productChanged(Product product) {
+        // search_vector is a generated column
+    }
+
+    @Override
+    public void productRemoved(Long id) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.sheshape.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Adds the columns and indexes {@code search.mode=postgres} relies on, which
+ * Hibernate's schema update can't express: generated {@code tsvector} columns
+ * (weighted title/name first) with GIN indexes, and {@code pg_trgm} indexes for
+ * the typo fallback. Every statement is idempotent, so this runs on each start.
+ * Product categories live in their own table, which a generated column can't
+ * read, so a trigger copies them into {@code products.search_categories}.
+ */
+@Component
+@ConditionalOnProperty(name = "search.mode", havingValue = "postgres")
+public class PostgresSearchSchema {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresSearchSchema.class);
+
+    public static final List<String> PRODUCT_STATEMENTS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            // A vector generated before categories were searchable is dropped and rebuilt below
+            "DO $$ BEGIN "
+                    + "IF NOT EXISTS (SELECT 1 FROM information_schema.columns "
+                    + "WHERE table_schema = current_schema() AND table_name = 'products' "
+                    + "AND column_name = 'search_categories') THEN "
+                    + "ALTER TABLE products DROP COLUMN IF EXISTS search_vector; "
+                    + "ALTER TABLE products ADD COLUMN search_categories text; "
+                    + "UPDATE products p SET search_categories = (SELECT string_agg(c.category, ' ' ORDER BY c.category) "
+                    + "FROM product_categories c WHERE c.product_id = p.id); "
+                    + "END IF; END $$",
+            "CREATE OR REPLACE FUNCTION sync_product_search_categories() RETURNS trigger LANGUAGE plpgsql AS $$ "
+                    + "DECLARE changed bigint := CASE WHEN TG_OP = 'DELETE' THEN OLD.product_id ELSE NEW.product_id END; "
+                    + "BEGIN "
+                    + "UPDATE products SET search_categories = (SELECT string_agg(category, ' ' ORDER BY category) "
+                    + "FROM product_categories WHERE product_id = changed) WHERE id = changed; "
+                    + "RETURN NULL; END $$",
+            "DROP TRIGGER IF EXISTS product_categories_search ON product_categories",
+            "CREATE TRIGGER product_categories_search AFTER INSERT OR UPDATE OR DELETE ON product_categories "
+                    + "FOR EACH ROW EXECUTE FUNCTION sync_product_search_categories()",
+            "ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+                    + "setweight(to_tsvector('english', coalesce(name, '')), 'A') || "
+                    + "setweight(to_tsvector('english', coalesce(search_categories, '')), 'B') || "
+                    + "setweight(to_tsvector('english', coalesce(description, '')), 'C')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING gin (search_vector)",
+            "CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING gin (name gin_trgm_ops)");
+
+    public static final List<String> BLOG_STATEMENTS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "ALTER TABLE blog_posts ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+                    + "setweight(to_tsvector('english', coalesce(title, '')), 'A') || "
+                    + "setweight(to_tsvector('english', coalesce(category, '')), 'B') || "
+                    + "setweight(to_tsvector('english', coalesce(content, '')), 'C')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_blog_posts_search_vector ON blog_posts USING gin (search_vector)",
+            "CREATE INDEX IF NOT EXISTS idx_blog_posts_title_trgm ON blog_posts USING gin (title gin_trgm_ops)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Depends on the EntityManagerFactory so Hibernate has created the tables first
+    public PostgresSearchSchema(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void apply() {
+        PRODUCT_STATEMENTS.forEach(jdbcTemplate::execute);
+        BLOG_STATEMENTS.forEach(jdbcTemplate::execute);
+        logger.info("Postgres full-text search columns and indexes are in place");
+    }
+}
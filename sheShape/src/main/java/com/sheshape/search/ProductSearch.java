@@ -0,0 +1,18 @@
+package com.sheshape.search;
+
+import com.sheshape.model.Product;
+
+/**
+ * Full-text search over active products, faceted by category. Which backend
+ * serves it is chosen with {@code search.mode}: {@code memory} (default) or
+ * {@code postgres}.
+ */
+public interface ProductSearch {
+
+    SearchResult search(String query, String category, int offset, int limit);
+
+    /** Called inside the writing transaction after the product was saved. */
+    void productChanged(Product product);
+
+    void productRemoved(Long id);
+}
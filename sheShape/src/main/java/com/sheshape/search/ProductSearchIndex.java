@@ -0,0 +1,104 @@
+package com.sheshape.search;
+
+import com.sheshape.model.Product;
+import com.sheshape.repository.ProductRepository;
+import com.sheshape.security.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text index over active products: name, categories and description, with
+ * categories as the facet. Rebuilt from the database at startup and kept current
+ * by the product service after each commit.
+ */
+@Component
+@ConditionalOnProperty(name = "search.mode", havingValue = "memory", matchIfMissing = true)
+public class ProductSearchIndex implements ProductSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final InvertedIndex index = new InvertedIndex(Map.of(
+            "name", 3f,
+            "categories", 2f,
+            "description", 1f));
+
+    public ProductSearchIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public SearchResult search(String query, String category, int offset, int limit) {
+        return index.search(query, category, offset, limit);
+    }
+
+    /** Reindexes the product once the current transaction commits; inactive products drop out. */
+    @Override
+    public void productChanged(Product product) {
+        Long id = product.getId();
+        SearchDocument document = Boolean.TRUE.equals(product.getIsActive()) ? toDocument(product) : null;
+        AfterCommit.run(() -> {
+            if (document != null) {
+                index.index(document);
+            } else {
+                index.remove(id);
+            }
+        });
+    }
+
+    @Override
+    public void productRemoved(Long id) {
+        AfterCommit.run(() -> index.remove(id));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        index.beginRebuild();
+        try {
+            long afterId = 0;
+            List<Long> ids;
+            do {
+                long from = afterId;
+                ids = readOnlyTransaction.execute(status -> {
+                    List<Long> page = productRepository.findActiveIdsForSearchIndex(from, Limit.of(REBUILD_BATCH_SIZE));
+                    if (!page.isEmpty()) {
+                        index.rebuildBatch(productRepository.findWithCategoriesByIdIn(page).stream()
+                                .map(ProductSearchIndex::toDocument)
+                                .toList());
+                    }
+                    return page;
+                });
+                if (!ids.isEmpty()) {
+                    afterId = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == REBUILD_BATCH_SIZE);
+        } finally {
+            index.endRebuild();
+        }
+        logger.info("Indexed {} products for search in {} ms", index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static SearchDocument toDocument(Product product) {
+        return new SearchDocument(product.getId(),
+                Map.of("name", product.getName(),
+                        "categories", String.join(" ", product.getCategories()),
+                        "description", product.getDescription() != null ? product.getDescription() : ""),
+                List.copyOf(product.getCategories()));
+    }
+}
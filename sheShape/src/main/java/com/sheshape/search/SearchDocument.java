@@ -0,0 +1,11 @@
+package com.sheshape.search;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * What gets indexed for one row: text per field (weighted by the index) and the
+ * facet values it can be filtered and counted by.
+ */
+public record SearchDocument(Long id, Map<String, String> fields, Collection<String> facets) {
+}
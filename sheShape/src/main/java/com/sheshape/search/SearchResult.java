@@ -0,0 +1,45 @@
+package com.sheshape.search;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * One page of hits, best first, with the total match count and how many matches
+ * fall under each facet value (counted before the facet filter is applied).
+ */
+public record SearchResult(List<Long> ids, long total, Map<String, Long> facets) {
+
+    static SearchResult empty() {
+        return new SearchResult(List.of(), 0, Map.of());
+    }
+
+    /** From native query rows: hits as [id, total matches], facets as [value, count] in display order. */
+    static SearchResult fromRows(List<Object[]> hits, List<Object[]> facetCounts) {
+        long total = hits.isEmpty() ? 0 : ((Number) hits.get(0)[1]).longValue();
+        Map<String, Long> facets = new LinkedHashMap<>();
+        facetCounts.forEach(row -> facets.put((String) row[0], ((Number) row[1]).longValue()));
+
+        return new SearchResult(hits.stream().map(row -> ((Number) row[0]).longValue()).toList(), total, facets);
+    }
+
+    /** One page of a native search query whose rows are [id, total matches]. */
+    @FunctionalInterface
+    interface PageQuery {
+        List<Object[]> rows(int limit, int offset);
+    }
+
+    /**
+     * Reads the page at {@code offset}. A page past the last hit has no row to
+     * carry the total, so it is read from the first hit instead.
+     */
+    static SearchResult fromPage(PageQuery query, int offset, int limit, Supplier<List<Object[]>> facetCounts) {
+        List<Object[]> hits = query.rows(limit, offset);
+        if (hits.isEmpty() && offset > 0) {
+            SearchResult first = fromRows(query.rows(1, 0), facetCounts.get());
+            return new SearchResult(List.of(), first.total(), first.facets());
+        }
+        return fromRows(hits, facetCounts.get());
+    }
+}
@@ -0,0 +1,139 @@
+package com.sheshape.security;
+
+import com.sheshape.model.User;
+import com.sheshape.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of each user's account version and active flag, used to revoke
+ * stateless tokens without a database lookup per request. Local changes are applied
+ * on commit; changes made on other nodes are picked up by a periodic incremental
+ * refresh, and a less frequent full reload drops users that were deleted.
+ */
+@Component
+public class AccountVersionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountVersionRegistry.class);
+
+    public enum Status {
+        CURRENT,
+        REVOKED,
+        UNKNOWN
+    }
+
+    private record State(long version, boolean active) {
+    }
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final Duration fullReloadInterval;
+
+    private volatile Map<Long, State> states = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastRefresh;
+    private volatile LocalDateTime lastFullReload;
+
+    public AccountVersionRegistry(
+            UserRepository userRepository,
+            @Value("${jwt.stateless-claims.enabled:false}") boolean enabled,
+            @Value("${jwt.stateless-claims.full-reload-interval:PT10M}") Duration fullReloadInterval) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.fullReloadInterval = fullReloadInterval;
+    }
+
+    /**
+     * Compares a token's account version with the latest known one. UNKNOWN means
+     * the user hasn't been loaded yet (or was deleted) and the caller should fall
+     * back to resolving the user from the database.
+     */
+    public Status check(Long userId, long tokenVersion) {
+        State state = states.get(userId);
+        if (state == null) {
+            return Status.UNKNOWN;
+        }
+        return state.active() && state.version() == tokenVersion ? Status.CURRENT : Status.REVOKED;
+    }
+
+    public void update(User user) {
+        if (!enabled || user.getId() == null) {
+            return;
+        }
+        State state = new State(versionOf(user.getAccountVersion()), Boolean.TRUE.equals(user.getIsActive()));
+        AfterCommit.run(() -> put(user.getId(), state));
+    }
+
+    public void remove(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        AfterCommit.run(() -> states.remove(userId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (enabled) {
+            reloadAll();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.stateless-claims.refresh-interval:PT15S}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (lastRefresh == null || lastFullReload.plus(fullReloadInterval).isBefore(now)) {
+            reloadAll();
+            return;
+        }
+
+        // Overlap a few seconds so rows committed just after the previous query aren't missed
+        LocalDateTime since = lastRefresh.minusSeconds(5);
+        lastRefresh = now;
+        userRepository.findAccountStatesUpdatedSince(since).forEach(this::apply);
+    }
+
+    private void reloadAll() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UserRepository.AccountState> all = userRepository.findAllAccountStates();
+
+        Map<Long, State> reloaded = new ConcurrentHashMap<>(Math.max(16, all.size() * 2));
+        for (UserRepository.AccountState account : all) {
+            reloaded.put(account.getId(),
+                    new State(versionOf(account.getAccountVersion()), Boolean.TRUE.equals(account.getIsActive())));
+        }
+
+        states = reloaded;
+        lastRefresh = now;
+        lastFullReload = now;
+        logger.debug("Loaded account versions for {} users", reloaded.size());
+    }
+
+    private void apply(UserRepository.AccountState account) {
+        put(account.getId(),
+                new State(versionOf(account.getAccountVersion()), Boolean.TRUE.equals(account.getIsActive())));
+    }
+
+    // Every revoking change bumps the version, so never let an older snapshot win
+    private void put(Long userId, State state) {
+        states.merge(userId, state, (current, incoming) ->
+                incoming.version() >= current.version() ? incoming : current);
+    }
+
+    private static long versionOf(Long version) {
+        return version == null ? 0L : version;
+    }
+}
@@ -0,0 +1,46 @@
+package com.sheshape.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+/**
+ * Spring Security principal that also carries the fields embedded in
+ * stateless tokens, so they can be issued without another user lookup.
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long id;
+    private final String role;
+    private final long accountVersion;
+
+    public AuthenticatedUser(Long id, String username, String password, String role, long accountVersion,
+                             boolean enabled, Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.id = id;
+        this.role = role;
+        this.accountVersion = accountVersion;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public long getAccountVersion() {
+        return accountVersion;
+    }
+
+    // User id for logs, falling back to the username for other principal types
+    public static Object idOf(Object principal) {
+        if (principal instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return principal instanceof UserDetails userDetails ? userDetails.getUsername() : principal;
+    }
+}
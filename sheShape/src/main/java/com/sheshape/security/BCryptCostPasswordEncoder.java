@@ -0,0 +1,31 @@
+package com.sheshape.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that asks for a re-hash whenever the stored cost differs from the
+ * configured one, so the cost factor can be lowered as well as raised.
+ */
+public class BCryptCostPasswordEncoder extends BCryptPasswordEncoder {
+
+    private final int strength;
+
+    public BCryptCostPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // $2a$10$... -> cost is the two digits after the version
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return super.upgradeEncoding(encodedPassword);
+        }
+
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return super.upgradeEncoding(encodedPassword);
+        }
+    }
+}
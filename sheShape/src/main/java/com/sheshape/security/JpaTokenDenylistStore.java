@@ -0,0 +1,42 @@
+package com.sheshape.security;
+
+import com.sheshape.model.RevokedToken;
+import com.sheshape.repository.RevokedTokenRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores revoked token ids in the {@code revoked_tokens} table.
+ */
+@Component
+public class JpaTokenDenylistStore implements TokenDenylistStore {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    public JpaTokenDenylistStore(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    @Override
+    public void save(String tokenId, Instant expiresAt) {
+        revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt, Instant.now()));
+    }
+
+    @Override
+    public Map<String, Instant> findRevokedSince(Instant since, Instant now) {
+        Map<String, Instant> revoked = new HashMap<>();
+        revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(since, now)
+                .forEach(token -> revoked.put(token.getTokenId(), token.getExpiresAt()));
+        return revoked;
+    }
+
+    @Override
+    @Transactional
+    public int deleteExpired(Instant now) {
+        return revokedTokenRepository.deleteExpired(now);
+    }
+}
@@ -1,7 +1,12 @@
 package com.sheshape.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.sheshape.dto.AuthDTO;
+import com.sheshape.logging.AccessLogFilter;
+import com.sheshape.logging.AuditLog;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,11 +28,24 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
 
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final LoginExecutor loginExecutor;
 
+    // Derived once from the application's ObjectMapper; readers and writers are immutable and thread-safe
+    private final ObjectReader authRequestReader;
+    private final ObjectWriter authResponseWriter;
+    private final ObjectWriter errorWriter;
 
-    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, JwtUtil jwtUtil,
+                                   ObjectMapper objectMapper, LoginExecutor loginExecutor) {
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.loginExecutor = loginExecutor;
+        this.authRequestReader = objectMapper.readerFor(AuthDTO.AuthRequest.class);
+        // Login responses are small and hot; skip the pretty-printing configured for the API
+        this.authResponseWriter = objectMapper.writerFor(AuthDTO.AuthResponse.class)
+                .without(SerializationFeature.INDENT_OUTPUT);
+        this.errorWriter = objectMapper.writerFor(Map.class)
+                .without(SerializationFeature.INDENT_OUTPUT);
         setFilterProcessesUrl("/api/auth/login");
     }
 
@@ -35,15 +53,15 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
     public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response) 
             throws AuthenticationException {
         try {
-            AuthDTO.AuthRequest authRequest = new ObjectMapper()
-                    .readValue(request.getInputStream(), AuthDTO.AuthRequest.class);
+            AuthDTO.AuthRequest authRequest = authRequestReader.readValue(request.getInputStream());
 
-            return authenticationManager.authenticate(
+            // The password hash runs on the bounded login pool, not the servlet thread's core
+            return loginExecutor.authenticate(() -> authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             authRequest.getEmail(),
                             authRequest.getPassword()
                     )
-            );
+            ));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -56,6 +74,10 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         
         UserDetails userDetails = (UserDetails) authResult.getPrincipal();
         String token = jwtUtil.generateToken(userDetails);
+
+        Object userId = AuthenticatedUser.idOf(userDetails);
+        request.setAttribute(AccessLogFilter.USER_ID_ATTRIBUTE, userId);
+        AuditLog.loginSucceeded(userId);
         
         // Get user authorities (roles)
         String authorities = userDetails.getAuthorities().stream()
@@ -67,7 +89,7 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         
         // Write response
         response.setContentType("application/json");
-        response.getWriter().write(new ObjectMapper().writeValueAsString(authResponse));
+        authResponseWriter.writeValue(response.getOutputStream(), authResponse);
     }
 
     @Override
@@ -75,14 +97,22 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
                                               AuthenticationException failed) 
             throws IOException, ServletException {
         
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType("application/json");
         
         // Create error response
         Map<String, String> errorDetails = new HashMap<>();
-        errorDetails.put("message", "Authentication failed: " + failed.getMessage());
+        AuditLog.loginFailed(failed.getClass().getSimpleName());
+
+        if (failed instanceof LoginExecutor.LoginCapacityExceededException) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            errorDetails.put("message", failed.getMessage());
+        } else {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            errorDetails.put("message", "Authentication failed: " + failed.getMessage());
+        }
         
         // Write response
-        response.getWriter().write(new ObjectMapper().writeValueAsString(errorDetails));
+        errorWriter.writeValue(response.getOutputStream(), errorDetails);
     }
 }
\ No newline at end of file
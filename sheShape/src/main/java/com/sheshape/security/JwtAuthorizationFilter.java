@@ -1,6 +1,8 @@
 package com.sheshape.security;
 
+import com.sheshape.logging.AccessLogFilter;
 import com.sheshape.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,10 +22,18 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsServiceImpl userDetailsService;
+    private final PrincipalCache principalCache;
+    private final AccountVersionRegistry accountVersions;
+    private final TokenDenylist tokenDenylist;
 
-    public JwtAuthorizationFilter(JwtUtil jwtUtil, UserDetailsServiceImpl userDetailsService) {
+    public JwtAuthorizationFilter(JwtUtil jwtUtil, UserDetailsServiceImpl userDetailsService,
+                                  PrincipalCache principalCache, AccountVersionRegistry accountVersions,
+                                  TokenDenylist tokenDenylist) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.accountVersions = accountVersions;
+        this.tokenDenylist = tokenDenylist;
     }
 
     @Override
@@ -31,33 +41,54 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = getJwtFromRequest(request);
-            System.out.println("Here is the jwt: " + jwt);
 
             if (StringUtils.hasText(jwt)) {
-                // Extract username first without validation
-                String username = jwtUtil.extractUsername(jwt);
+                // Verify signature and expiry once; the claims are reused below
+                Claims claims = jwtUtil.validateAndGetClaims(jwt);
+                String username = claims.getSubject();
 
-                // Only proceed if we can extract a username
-                if (username != null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // Only proceed if the token carries a subject and hasn't been logged out
+                if (username != null && !tokenDenylist.isRevoked(claims.getId())) {
+                    UserDetails userDetails = resolvePrincipal(claims, username);
 
-                    // Now validate the token with the actual user details
-                    if (userDetails != null && jwtUtil.validateToken(jwt, userDetails)) {
+                    if (userDetails != null && username.equals(userDetails.getUsername())) {
                         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities());
                         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(authentication);
+                        request.setAttribute(AccessLogFilter.USER_ID_ATTRIBUTE, AuthenticatedUser.idOf(userDetails));
                     }
                 }
             }
         } catch (Exception e) {
-            logger.error("Cannot set user authentication: {}", e);
-            // Don't throw the exception, just log it and continue
+            // Expired or malformed tokens are routine; the request simply continues unauthenticated
+            logger.debug("Cannot set user authentication", e);
         }
 
         filterChain.doFilter(request, response);
     }
 
+    // Stateless tokens are trusted as long as their account version is still current;
+    // anything else is resolved from the database (through the principal cache)
+    private UserDetails resolvePrincipal(Claims claims, String username) {
+        if (jwtUtil.isStatelessClaimsEnabled()) {
+            AuthenticatedUser user = jwtUtil.extractAuthenticatedUser(claims);
+            if (user != null) {
+                switch (accountVersions.check(user.getId(), user.getAccountVersion())) {
+                    case CURRENT:
+                        return user;
+                    case REVOKED:
+                        return null;
+                    case UNKNOWN:
+                        break;
+                }
+            }
+        }
+
+        return principalCache.get(username, claims.getIssuedAt(),
+                () -> userDetailsService.loadUserByUsername(username));
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         
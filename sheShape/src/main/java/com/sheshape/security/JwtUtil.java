@@ -1,78 +1,164 @@
 package com.sheshape.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    // Claims embedded when stateless tokens are enabled
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_AUTHORITIES = "auth";
+    public static final String CLAIM_ACCOUNT_VERSION = "ver";
 
-    @Value("${jwt.expiration}")
-    private Long expirationTime;
+    private final Long expirationTime;
+    private final boolean statelessClaims;
 
-    private Key getSigningKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Built once: the HMAC key and the parser are immutable and thread-safe
+    private final Key signingKey;
+    private final JwtParser parser;
+
+    // Tokens whose signature has already been verified, so repeat requests skip the HMAC.
+    // Keyed by the token's SHA-256, so live credentials are not held on the heap
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtUtil(
+            @Value("${jwt.secret}") String secretKey,
+            @Value("${jwt.expiration}") Long expirationTime,
+            @Value("${jwt.stateless-claims.enabled:false}") boolean statelessClaims,
+            @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheSize,
+            @Value("${jwt.verified-cache.ttl:PT5M}") Duration verifiedCacheTtl) {
+        this.expirationTime = expirationTime;
+        this.statelessClaims = statelessClaims;
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfterWrite(verifiedCacheTtl)
+                .build();
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    /**
+     * Verifies the token's signature and expiry and returns its claims, parsing
+     * the token at most once. Throws a {@link io.jsonwebtoken.JwtException} if the
+     * token is malformed, forged or expired. The returned claims are shared with
+     * the cache and must not be modified.
+     */
+    public Claims validateAndGetClaims(String token) {
+        String digest = digest(token);
+        Claims claims = verifiedTokens.get(digest, key -> parseClaims(token));
+
+        Date expiration = claims.getExpiration();
+        if (expiration != null && expiration.before(new Date())) {
+            verifiedTokens.invalidate(digest);
+            throw new ExpiredJwtException(null, claims, "JWT expired at " + expiration);
+        }
+
+        return claims;
     }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public String extractUsername(String token) {
+        return extractClaim(token, Claims::getSubject);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(validateAndGetClaims(token));
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+
+        if (statelessClaims && userDetails instanceof AuthenticatedUser user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLE, user.getRole());
+            claims.put(CLAIM_AUTHORITIES, user.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .toList());
+            claims.put(CLAIM_ACCOUNT_VERSION, user.getAccountVersion());
+        }
+
         return createToken(claims, userDetails.getUsername());
     }
 
+    public boolean isStatelessClaimsEnabled() {
+        return statelessClaims;
+    }
+
+    /**
+     * Rebuilds the principal from a stateless token's claims, or returns null if
+     * the token was issued without them.
+     */
+    public AuthenticatedUser extractAuthenticatedUser(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number accountVersion = claims.get(CLAIM_ACCOUNT_VERSION, Number.class);
+        List<?> authorityNames = claims.get(CLAIM_AUTHORITIES, List.class);
+
+        if (userId == null || accountVersion == null || authorityNames == null) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = authorityNames.stream()
+                .map(name -> (GrantedAuthority) new SimpleGrantedAuthority(name.toString()))
+                .toList();
+
+        return new AuthenticatedUser(
+                userId.longValue(),
+                claims.getSubject(),
+                "",
+                claims.get(CLAIM_ROLE, String.class),
+                accountVersion.longValue(),
+                true,
+                authorities);
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
-
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        if (userDetails == null) {
-            return false;
-        }
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
 }
\ No newline at end of file
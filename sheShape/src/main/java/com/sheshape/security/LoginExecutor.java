@@ -0,0 +1,106 @@
+package com.sheshape.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool for the CPU-heavy password check behind {@code /api/auth/login}.
+ * Only {@code pool-size} hashes run at once, so a login storm can't take every
+ * core from the rest of the API. When the queue is full the login is rejected
+ * right away with {@link LoginCapacityExceededException} (served as a 503).
+ */
+@Component
+public class LoginExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final Timer loginTimer;
+    private final Counter rejectedLogins;
+
+    public LoginExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${security.login.pool-size:0}") int poolSize,
+            @Value("${security.login.queue-capacity:100}") int queueCapacity,
+            @Value("${security.login.timeout:PT10S}") Duration timeout) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeout = timeout;
+
+        Gauge.builder("auth.login.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Logins waiting for a password verification thread")
+                .register(meterRegistry);
+        this.loginTimer = Timer.builder("auth.login.duration")
+                .description("Time spent authenticating a login on the worker pool")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedLogins = Counter.builder("auth.login.rejected")
+                .description("Logins rejected because the worker pool was saturated")
+                .register(meterRegistry);
+    }
+
+    public Authentication authenticate(Supplier<Authentication> authentication) {
+        Future<Authentication> result;
+        try {
+            result = executor.submit(() -> loginTimer.record(authentication));
+        } catch (RejectedExecutionException e) {
+            rejectedLogins.increment();
+            throw new LoginCapacityExceededException("Too many concurrent logins, please retry shortly");
+        }
+
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AuthenticationException authenticationException) {
+                throw authenticationException;
+            }
+            throw new AuthenticationServiceException("Login failed", e.getCause());
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            rejectedLogins.increment();
+            throw new LoginCapacityExceededException("Login timed out waiting for a worker, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Login interrupted", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public static class LoginCapacityExceededException extends AuthenticationServiceException {
+
+        public LoginCapacityExceededException(String message) {
+            super(message);
+        }
+    }
+}
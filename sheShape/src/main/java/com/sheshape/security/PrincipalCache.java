@@ -0,0 +1,63 @@
+package com.sheshape.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicting cache of the principals resolved for verified JWTs,
+ * so authenticated requests don't reload the user from the database every time.
+ * Entries are keyed by subject and token issued-at; hit/miss counts are published
+ * as the {@code cache.*} metrics tagged {@code cache=jwt.principals}.
+ */
+@Component
+public class PrincipalCache {
+
+    static final String CACHE_NAME = "jwt.principals";
+
+    private final Cache<Key, UserDetails> cache;
+
+    public PrincipalCache(
+            MeterRegistry meterRegistry,
+            @Value("${jwt.principal-cache.max-size:10000}") long maxSize,
+            @Value("${jwt.principal-cache.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public UserDetails get(String subject, Date issuedAt, Supplier<UserDetails> loader) {
+        return cache.get(new Key(subject, issuedAt == null ? 0L : issuedAt.getTime()), key -> loader.get());
+    }
+
+    /**
+     * Drops every cached principal for the given subject. When called inside a
+     * transaction the eviction is deferred until commit, so a concurrent request
+     * can't repopulate the cache with the pre-update row.
+     */
+    public void evict(String subject) {
+        if (subject == null) {
+            return;
+        }
+
+        AfterCommit.run(() -> evictNow(subject));
+    }
+
+    private void evictNow(String subject) {
+        cache.asMap().keySet().removeIf(key -> key.subject().equals(subject));
+    }
+
+    private record Key(String subject, long issuedAt) {
+    }
+}
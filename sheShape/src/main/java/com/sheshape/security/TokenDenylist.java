@@ -0,0 +1,98 @@
+package com.sheshape.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Revoked token ids, each held only until the token itself would have expired,
+ * so memory is bounded by the number of live revoked tokens. Revocations are
+ * written through to a {@link TokenDenylistStore} and pulled back periodically
+ * to pick up logouts handled by other nodes.
+ */
+@Component
+public class TokenDenylist {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenDenylist.class);
+
+    // Re-read a little before the last sync to cover rows committed late by other nodes
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private final TokenDenylistStore store;
+    private final Cache<String, Instant> revoked;
+
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public TokenDenylist(TokenDenylistStore store) {
+        this.store = store;
+        this.revoked = Caffeine.newBuilder()
+                .expireAfter(new ExpireWithToken())
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revoked.getIfPresent(tokenId) != null;
+    }
+
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        revoked.put(tokenId, expiresAt);
+        store.save(tokenId, expiresAt);
+    }
+
+    // The first run happens at startup and loads every revocation that is still live
+    @Scheduled(fixedDelayString = "${jwt.denylist.sync-interval:PT30S}")
+    public void sync() {
+        Instant now = Instant.now();
+        Instant since = lastSync.equals(Instant.EPOCH) ? Instant.EPOCH : lastSync.minus(SYNC_OVERLAP);
+
+        try {
+            store.findRevokedSince(since, now).forEach(revoked::put);
+            lastSync = now;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to sync token denylist, will retry: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.denylist.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = store.deleteExpired(Instant.now());
+        if (purged > 0) {
+            logger.debug("Purged {} expired revoked tokens", purged);
+        }
+    }
+
+    // Each entry lives exactly as long as the token it revokes
+    private static class ExpireWithToken implements Expiry<String, Instant> {
+
+        @Override
+        public long expireAfterCreate(String tokenId, Instant expiresAt, long currentTime) {
+            return nanosUntil(expiresAt);
+        }
+
+        @Override
+        public long expireAfterUpdate(String tokenId, Instant expiresAt, long currentTime, long currentDuration) {
+            return nanosUntil(expiresAt);
+        }
+
+        @Override
+        public long expireAfterRead(String tokenId, Instant expiresAt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private static long nanosUntil(Instant expiresAt) {
+            return Math.max(0L, Duration.between(Instant.now(), expiresAt).toNanos());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.sheshape.security;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Durable backing for {@link TokenDenylist}, so revocations survive restarts and
+ * are shared between nodes.
+ */
+public interface TokenDenylistStore {
+
+    void save(String tokenId, Instant expiresAt);
+
+    /**
+     * Returns token id to expiry for every revocation recorded after {@code since}
+     * that hasn't expired by {@code now}.
+     */
+    Map<String, Instant> findRevokedSince(Instant since, Instant now);
+
+    int deleteExpired(Instant now);
+}
@@ -1,6 +1,7 @@
 package com.sheshape.service;
 
 import com.sheshape.dto.BlogPostDto;
+import com.sheshape.dto.SearchPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -18,7 +19,7 @@ public interface BlogService {
     
     Page<BlogPostDto> getPostsByCategory(String category, Pageable pageable);
     
-    Page<BlogPostDto> searchPosts(String keyword, Pageable pageable);
+    SearchPage<BlogPostDto> searchPosts(String keyword, String category, Pageable pageable);
     
     BlogPostDto createPost(BlogPostDto blogPostDto);
     
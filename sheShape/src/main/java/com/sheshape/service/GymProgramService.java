@@ -1,10 +1,18 @@
 package com.sheshape.service;
 
+import com.sheshape.dto.ClientMatchDto;
+import com.sheshape.dto.CursorPage;
 import com.sheshape.dto.GymProgramDto;
 import com.sheshape.dto.GymSessionDto;
+import com.sheshape.dto.ProgramEnrollmentDto;
+import com.sheshape.dto.RecommendationDto;
 import com.sheshape.dto.UserGymProgramDto;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
 import java.util.List;
+import java.util.Set;
 
 public interface GymProgramService {
     
@@ -13,6 +21,10 @@ public interface GymProgramService {
     
     List<GymProgramDto> getActiveGymPrograms();
     
+    CursorPage<GymProgramDto> getAllGymPrograms(String cursor, int size);
+    
+    CursorPage<GymProgramDto> getActiveGymPrograms(String cursor, int size);
+    
     GymProgramDto getGymProgramById(Long id);
     
     List<GymProgramDto> getGymProgramsByTrainer(Long trainerId);
@@ -37,7 +49,13 @@ public interface GymProgramService {
     // User-Program association
     List<UserGymProgramDto> getUserGymPrograms(Long userId);
     
-    List<UserGymProgramDto> getUsersForGymProgram(Long programId);
+    Page<ProgramEnrollmentDto> getEnrollmentsForGymProgram(Long programId, Set<String> expand, Pageable pageable);
+    
+    // Clients not yet enrolled whose fitness profiles best fit the program
+    List<ClientMatchDto> getClientMatches(Long programId, int limit);
+    
+    // Programs and plans often bought together with this one, from the co-purchase index
+    List<RecommendationDto> getRecommendations(Long programId, int limit);
     
     UserGymProgramDto purchaseGymProgram(Long userId, Long programId);
     
@@ -1,5 +1,6 @@
 package com.sheshape.service;
 
+import com.sheshape.dto.CursorPage;
 import com.sheshape.dto.NutritionPlanDto;
 import com.sheshape.dto.UserNutritionPlanDto;
 
@@ -11,6 +12,10 @@ public interface NutritionPlanService {
     
     List<NutritionPlanDto> getActiveNutritionPlans();
     
+    CursorPage<NutritionPlanDto> getAllNutritionPlans(String cursor, int size);
+    
+    CursorPage<NutritionPlanDto> getActiveNutritionPlans(String cursor, int size);
+    
     NutritionPlanDto getNutritionPlanById(Long id);
     
     List<NutritionPlanDto> getNutritionPlansByNutritionist(Long nutritionistId);
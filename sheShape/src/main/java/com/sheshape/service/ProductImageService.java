@@ -60,10 +60,12 @@ public interface ProductImageService {
     ProductImage setMainImage(Long imageId);
     
     /**
-     * Update the positions of multiple product images
-     * @param updatedImages Map of image IDs to their new positions
+     * Update the positions of multiple product images, and switch the main image
+     * if one of them is flagged main
+     * @param productId The product ID every image must belong to
+     * @param updatedImages Image IDs with their new positions and main flags
      */
-    void updateImagePositions(List<ProductImage> updatedImages);
+    void updateImagePositions(Long productId, List<ProductImage> updatedImages);
     
     /**
      * Delete all images for a product
@@ -1,10 +1,14 @@
 package com.sheshape.service;
 
+import com.sheshape.dto.CursorPage;
 import com.sheshape.dto.ProductDto;
+import com.sheshape.dto.ProductSummaryDto;
+import com.sheshape.dto.SearchPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
     
@@ -16,9 +20,13 @@ public interface ProductService {
     
     Page<ProductDto> getProductsByCategory(String category, Pageable pageable);
     
-    Page<ProductDto> searchProducts(String keyword, Pageable pageable);
+    /** Active products as slim cards, optionally within one category. */
+    Page<ProductSummaryDto> getActiveProductSummaries(String category, Pageable pageable);
     
-    List<ProductDto> getProductsInStock();
+    SearchPage<ProductDto> searchProducts(String keyword, String category, Pageable pageable);
+    
+    /** Active products with stock, newest first; {@code category} is optional. */
+    CursorPage<ProductDto> getProductsInStock(String category, String cursor, int size);
     
     ProductDto createProduct(ProductDto productDto);
     
@@ -30,5 +38,19 @@ public interface ProductService {
     
     void deleteProduct(Long id);
     
+    /**
+     * Opens its own transaction only when the product isn't on flash sale; call it
+     * outside a transaction so a flash-sale checkout holds no connection while it waits.
+     */
     boolean updateInventory(Long id, int quantity);
+    
+    /**
+     * Reserves every line of a cart or none of them: throws {@link com.sheshape.exception.BadRequestException}
+     * and rolls back if any product is short. Like {@link #updateInventory}, best called outside a transaction.
+     */
+    void reserveInventory(Map<Long, Integer> quantities);
+    
+    void startFlashSale(Long id);
+    
+    void endFlashSale(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.sheshape.service;
+
+import com.sheshape.dto.ImportReport;
+import com.sheshape.exception.BadRequestException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface ProductTransferService {
+
+    enum Format {
+        CSV("text/csv"),
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new BadRequestException("Unsupported format: " + name + " (expected csv or ndjson)");
+        }
+    }
+
+    /**
+     * Create or replace products from a CSV or NDJSON stream, committing in
+     * chunks. Rows that fail validation or saving are reported, not thrown.
+     * @param format The input format
+     * @param input The file, read once and never held in memory whole
+     * @return Counts and the first row errors
+     */
+    ImportReport importProducts(Format format, InputStream input);
+
+    /**
+     * Write every product, in id order, in the given format
+     * @param format The output format
+     * @param output Where rows are written as they are read from the database
+     */
+    void exportProducts(Format format, OutputStream output) throws IOException;
+}
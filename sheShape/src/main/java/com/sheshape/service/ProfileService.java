@@ -3,10 +3,14 @@ package com.sheshape.service;
 import com.sheshape.dto.profile.*;
 import com.sheshape.exception.ResourceNotFoundException;
 import com.sheshape.exception.BadRequestException;
+import com.sheshape.exception.PreconditionFailedException;
 import com.sheshape.model.User;
 import com.sheshape.model.profile.*;
 import com.sheshape.repository.UserRepository;
 import com.sheshape.repository.profile.*;
+import com.sheshape.retry.RetryOnConflict;
+import com.sheshape.service.impl.ClientMatchIndex;
+import com.sheshape.service.impl.ProfileCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -28,6 +32,8 @@ public class ProfileService {
     private final HealthInformationRepository healthInformationRepository;
     private final UserPreferencesRepository userPreferencesRepository;
     private final FileStorageService fileStorageService;
+    private final ProfileCache profileCache;
+    private final ClientMatchIndex clientMatchIndex;
 
     @Transactional
     public ProfileResponseDTO setupProfile(Long userId, ProfileSetupRequestDTO request) {
@@ -62,11 +68,14 @@ public class ProfileService {
         user.setProfileCompleted(true);
         userRepository.save(user);
 
+        profileCache.profileChanged(userId);
+        clientMatchIndex.profileChanged(userId);
         log.info("Profile setup completed for user ID: {}", userId);
-        return buildProfileResponse(user, profile, physicalAttributes, fitnessProfile,
+        return buildProfileResponse(user.getProfileCompleted(), profile, physicalAttributes, fitnessProfile,
                 healthInformation, userPreferences);
     }
 
+    @RetryOnConflict
     @Transactional
     public ProfileResponseDTO updateProfile(Long userId, ProfileUpdateRequestDTO request) {
         log.info("Updating profile for user ID: {}", userId);
@@ -80,8 +89,10 @@ public class ProfileService {
         HealthInformation healthInformation = updateHealthInformation(userId, request);
         UserPreferences userPreferences = updateUserPreferences(userId, request);
 
+        profileCache.profileChanged(userId);
+        clientMatchIndex.profileChanged(userId);
         log.info("Profile updated for user ID: {}", userId);
-        return buildProfileResponse(user, profile, physicalAttributes, fitnessProfile,
+        return buildProfileResponse(user.getProfileCompleted(), profile, physicalAttributes, fitnessProfile,
                 healthInformation, userPreferences);
     }
 
@@ -105,6 +116,7 @@ public class ProfileService {
 
         profile.setProfilePictureUrl(fileUrl);
         profileRepository.save(profile);
+        profileCache.profileChanged(userId);
 
         log.info("Profile picture uploaded successfully for user ID: {}", userId);
 
@@ -118,42 +130,46 @@ public class ProfileService {
 
     }
 
-    @Transactional(readOnly = true)
-    public ProfileResponseDTO getUserProfile(Long userId) {
-        log.info("Retrieving profile for user ID: {}", userId);
+    @Transactional
+    public void deleteProfilePicture(Long userId) {
+        log.info("Deleting profile picture for user ID: {}", userId);
 
-        User user = getUserById(userId);
-        Profile profile = profileRepository.findByUserId(userId).orElse(null);
-        PhysicalAttributes physicalAttributes = physicalAttributesRepository.findByUserId(userId).orElse(null);
-        FitnessProfile fitnessProfile = fitnessProfileRepository.findByUserId(userId).orElse(null);
-        HealthInformation healthInformation = healthInformationRepository.findByUserId(userId).orElse(null);
-        UserPreferences userPreferences = userPreferencesRepository.findByUserId(userId).orElse(null);
+        Profile profile = profileRepository.findByUserId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User profile not found"));
 
-        return buildProfileResponse(user, profile, physicalAttributes, fitnessProfile,
-                healthInformation, userPreferences);
+        if (profile.getProfilePictureUrl() != null) {
+            fileStorageService.deleteFile(profile.getProfilePictureUrl());
+            profile.setProfilePictureUrl(null);
+            profileRepository.save(profile);
+            profileCache.profileChanged(userId);
+        }
     }
 
-    @Transactional(readOnly = true)
+    public ProfileResponseDTO getUserProfile(Long userId) {
+        log.info("Retrieving profile for user ID: {}", userId);
+        return profileCache.get(userId, this::loadProfile);
+    }
+
+    // Served from the same cached profile as getUserProfile
     public UserProfileSummaryDTO getUserProfileSummary(Long userId) {
         log.info("Retrieving profile summary for user ID: {}", userId);
 
-        User user = getUserById(userId);
-        Profile profile = profileRepository.findByUserId(userId).orElse(null);
-        FitnessProfile fitnessProfile = fitnessProfileRepository.findByUserId(userId).orElse(null);
+        ProfileResponseDTO profile = getUserProfile(userId);
 
         return UserProfileSummaryDTO.builder()
-                .userId(user.getId())
-                .firstName(profile != null ? profile.getFirstName() : null)
-                .lastName(profile != null ? profile.getLastName() : null)
-                .dateOfBirth(profile != null ? profile.getDateOfBirth() : null)
-                .gender(profile != null ? profile.getGender() : null)
-                .profilePictureUrl(profile != null ? profile.getProfilePictureUrl() : null)
-                .fitnessLevel(fitnessProfile != null ? fitnessProfile.getFitnessLevel() : null)
-                .primaryGoal(fitnessProfile != null ? fitnessProfile.getPrimaryGoal() : null)
-                .profileCompleted(user.getProfileCompleted())
+                .userId(userId)
+                .firstName(profile.getFirstName())
+                .lastName(profile.getLastName())
+                .dateOfBirth(profile.getDateOfBirth())
+                .gender(profile.getGender())
+                .profilePictureUrl(profile.getProfilePictureUrl())
+                .fitnessLevel(profile.getFitnessLevel())
+                .primaryGoal(profile.getPrimaryGoal())
+                .profileCompleted(profile.getProfileCompleted())
                 .build();
     }
 
+    @RetryOnConflict
     @Transactional
     public ProfileResponseDTO updateBasicInfo(Long userId, BasicProfileInfoDTO request) {
         log.info("Updating basic info for user ID: {}", userId);
@@ -161,6 +177,7 @@ public class ProfileService {
         User user = getUserById(userId);
         Profile profile = profileRepository.findByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User profile not found"));
+        PreconditionFailedException.checkVersion("Profile", request.getVersion(), profile.getVersion());
 
         profile.setFirstName(request.getFirstName());
         profile.setLastName(request.getLastName());
@@ -168,12 +185,22 @@ public class ProfileService {
         profile.setGender(request.getGender());
         profile.setPhoneNumber(request.getPhoneNumber());
 
-        profileRepository.save(profile);
+        profileRepository.saveAndFlush(profile);
+        profileCache.profileChanged(userId);
 
-        return getUserProfile(userId);
+        // Read inside this transaction, bypassing the cache, which holds only committed state
+        return loadProfile(userId);
     }
 
     // Private helper methods
+    private ProfileResponseDTO loadProfile(Long userId) {
+        ProfileSections sections = profileRepository.findSectionsByUserId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + userId));
+
+        return buildProfileResponse(sections.profileCompleted(), sections.profile(), sections.physicalAttributes(),
+                sections.fitnessProfile(), sections.healthInformation(), sections.userPreferences());
+    }
+
     private User getUserById(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + userId));
@@ -213,6 +240,7 @@ public class ProfileService {
 
     private Profile updateProfile(User user, ProfileUpdateRequestDTO request) {
         Profile profile = profileRepository.findByUserId(user.getId()).orElse(new Profile());
+        PreconditionFailedException.checkVersion("Profile", request.getVersion(), profile.getVersion());
         profile.setUser(user);
 
         if (request.getFirstName() != null) profile.setFirstName(request.getFirstName());
@@ -221,7 +249,9 @@ public class ProfileService {
         if (request.getGender() != null) profile.setGender(request.getGender());
         if (request.getPhoneNumber() != null) profile.setPhoneNumber(request.getPhoneNumber());
 
-        return profileRepository.save(profile);
+        // The profile row versions the whole aggregate, so touch it even when only child tables change
+        profile.setUpdatedAt(LocalDateTime.now());
+        return profileRepository.saveAndFlush(profile);
     }
 
     private PhysicalAttributes createPhysicalAttributes(Long userId, ProfileSetupRequestDTO request) {
@@ -347,14 +377,14 @@ public class ProfileService {
         return userPreferencesRepository.save(preferences);
     }
 
-    private ProfileResponseDTO buildProfileResponse(User user, Profile profile,
+    private ProfileResponseDTO buildProfileResponse(Boolean profileCompleted, Profile profile,
                                                     PhysicalAttributes physicalAttributes,
                                                     FitnessProfile fitnessProfile,
                                                     HealthInformation healthInformation,
                                                     UserPreferences userPreferences) {
 
         ProfileResponseDTO.ProfileResponseDTOBuilder builder = ProfileResponseDTO.builder()
-                .profileCompleted(user.getProfileCompleted());
+                .profileCompleted(profileCompleted);
 
         // Basic Profile Information
         if (profile != null) {
@@ -366,7 +396,8 @@ public class ProfileService {
                     .phoneNumber(profile.getPhoneNumber())
                     .profilePictureUrl(profile.getProfilePictureUrl())
                     .createdAt(profile.getCreatedAt())
-                    .updatedAt(profile.getUpdatedAt());
+                    .updatedAt(profile.getUpdatedAt())
+                    .version(profile.getVersion());
         }
 
         // Physical Attributes
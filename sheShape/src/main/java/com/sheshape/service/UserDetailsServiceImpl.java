@@ -2,20 +2,21 @@ package com.sheshape.service;
 
 import com.sheshape.model.User;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.security.AuthenticatedUser;
 import jakarta.transaction.Transactional;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -42,14 +43,29 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                     authorities.add(new SimpleGrantedAuthority(authority.getName())));
         }
 
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail())
-                .password(user.getPassword())
-                .authorities(authorities)
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(!user.getIsActive())
-                .build();
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getEmail(),
+                user.getPassword(),
+                user.getRole().name(),
+                user.getAccountVersion() == null ? 0L : user.getAccountVersion(),
+                user.getIsActive(),
+                authorities);
     }
-}
\ No newline at end of file
+
+    /**
+     * Called by the authentication provider after a successful login when the stored
+     * hash uses an outdated encoder or cost, so the hash migrates without a reset.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userDetails.getUsername()));
+
+        user.setPassword(newPassword);
+        userRepository.save(user);
+
+        return loadUserByUsername(user.getEmail());
+    }
+}
@@ -6,13 +6,20 @@ import com.sheshape.dto.AuthDTO.RegistrationRequest;
 import com.sheshape.dto.UserDto;
 import com.sheshape.exception.BadRequestException;
 import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.logging.AuditLog;
 import com.sheshape.model.Authority;
 import com.sheshape.model.profile.Profile;
 import com.sheshape.model.User;
 import com.sheshape.repository.AuthorityRepository;
 import com.sheshape.repository.profile.ProfileRepository;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.security.AccountVersionRegistry;
+import com.sheshape.security.AuthenticatedUser;
 import com.sheshape.security.JwtUtil;
+import com.sheshape.security.PrincipalCache;
+import com.sheshape.security.TokenDenylist;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import com.sheshape.service.AuthService;
 import jakarta.transaction.Transactional;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -37,6 +44,9 @@ public class AuthServiceImpl implements AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final PrincipalCache principalCache;
+    private final AccountVersionRegistry accountVersions;
+    private final TokenDenylist tokenDenylist;
 
     public AuthServiceImpl(
             UserRepository userRepository,
@@ -44,13 +54,19 @@ public class AuthServiceImpl implements AuthService {
             AuthorityRepository authorityRepository,
             PasswordEncoder passwordEncoder,
             AuthenticationManager authenticationManager,
-            JwtUtil jwtUtil) {
+            JwtUtil jwtUtil,
+            PrincipalCache principalCache,
+            AccountVersionRegistry accountVersions,
+            TokenDenylist tokenDenylist) {
         this.userRepository = userRepository;
         this.profileRepository = profileRepository;
         this.authorityRepository = authorityRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.principalCache = principalCache;
+        this.accountVersions = accountVersions;
+        this.tokenDenylist = tokenDenylist;
     }
 
     @Override
@@ -144,9 +160,22 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public void logout(String token) {
-        // In a real implementation, you might want to blacklist the token
-        // or remove it from a token store
-        // This is a simple implementation
+        if (token == null) {
+            return;
+        }
+
+        Claims claims;
+        try {
+            claims = jwtUtil.validateAndGetClaims(token);
+        } catch (JwtException e) {
+            // Invalid or already expired, nothing left to revoke
+            return;
+        }
+
+        tokenDenylist.revoke(claims.getId(), claims.getExpiration().toInstant());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuditLog.logout(authentication != null ? AuthenticatedUser.idOf(authentication.getPrincipal()) : null);
     }
 
     @Override
@@ -162,8 +191,11 @@ public class AuthServiceImpl implements AuthService {
         
         // Update to new password
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.incrementAccountVersion();
         
         User updatedUser = userRepository.save(user);
+        principalCache.evict(updatedUser.getEmail());
+        accountVersions.update(updatedUser);
         
         return new UserDto(updatedUser);
     }
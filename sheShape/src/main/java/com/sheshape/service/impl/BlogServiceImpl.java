@@ -1,11 +1,16 @@
 package com.sheshape.service.impl;
 
 import com.sheshape.dto.BlogPostDto;
+import com.sheshape.dto.SearchPage;
+import com.sheshape.exception.PreconditionFailedException;
 import com.sheshape.exception.ResourceNotFoundException;
 import com.sheshape.model.BlogPost;
 import com.sheshape.model.User;
 import com.sheshape.repository.BlogPostRepository;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.retry.RetryOnConflict;
+import com.sheshape.search.BlogSearch;
+import com.sheshape.search.SearchResult;
 import com.sheshape.service.BlogService;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
@@ -17,6 +22,9 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,10 +32,13 @@ public class BlogServiceImpl implements BlogService {
 
     private final BlogPostRepository blogPostRepository;
     private final UserRepository userRepository;
+    private final BlogSearch blogSearch;
 
-    public BlogServiceImpl(BlogPostRepository blogPostRepository, UserRepository userRepository) {
+    public BlogServiceImpl(BlogPostRepository blogPostRepository, UserRepository userRepository,
+                           BlogSearch blogSearch) {
         this.blogPostRepository = blogPostRepository;
         this.userRepository = userRepository;
+        this.blogSearch = blogSearch;
     }
 
     @Override
@@ -77,9 +88,21 @@ public class BlogServiceImpl implements BlogService {
     }
 
     @Override
-    public Page<BlogPostDto> searchPosts(String keyword, Pageable pageable) {
-        return blogPostRepository.findByTitleContainingIgnoreCaseAndIsPublishedTrue(keyword, pageable)
-                .map(BlogPostDto::new);
+    public SearchPage<BlogPostDto> searchPosts(String keyword, String category, Pageable pageable) {
+        SearchResult result = blogSearch.search(keyword, category, (int) pageable.getOffset(), pageable.getPageSize());
+
+        // Keep the index's ranking; the IN query returns rows in any order
+        Map<Long, BlogPost> posts = result.ids().isEmpty() ? Map.of()
+                : blogPostRepository.findAllWithAuthorByIdIn(result.ids()).stream()
+                        .collect(Collectors.toMap(BlogPost::getId, Function.identity()));
+        List<BlogPostDto> content = result.ids().stream()
+                .map(posts::get)
+                .filter(Objects::nonNull)
+                .map(BlogPostDto::new)
+                .toList();
+
+        return new SearchPage<>(content, pageable.getPageNumber(), pageable.getPageSize(),
+                result.total(), result.facets());
     }
 
     @Override
@@ -111,15 +134,18 @@ public class BlogServiceImpl implements BlogService {
         }
 
         BlogPost savedPost = blogPostRepository.save(post);
+        blogSearch.postChanged(savedPost);
 
         return new BlogPostDto(savedPost);
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public BlogPostDto updatePost(Long id, BlogPostDto blogPostDto) {
         BlogPost post = blogPostRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
+        PreconditionFailedException.checkVersion("Blog post", blogPostDto.getVersion(), post.getVersion());
 
         // Get current user
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -159,12 +185,14 @@ public class BlogServiceImpl implements BlogService {
             }
         }
 
-        BlogPost updatedPost = blogPostRepository.save(post);
+        BlogPost updatedPost = blogPostRepository.saveAndFlush(post);
+        blogSearch.postChanged(updatedPost);
 
         return new BlogPostDto(updatedPost);
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public BlogPostDto publishPost(Long id) {
         BlogPost post = blogPostRepository.findById(id)
@@ -184,12 +212,14 @@ public class BlogServiceImpl implements BlogService {
         post.setIsPublished(true);
         post.setPublishedAt(LocalDateTime.now());
 
-        BlogPost publishedPost = blogPostRepository.save(post);
+        BlogPost publishedPost = blogPostRepository.saveAndFlush(post);
+        blogSearch.postChanged(publishedPost);
 
         return new BlogPostDto(publishedPost);
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public BlogPostDto unpublishPost(Long id) {
         BlogPost post = blogPostRepository.findById(id)
@@ -208,7 +238,8 @@ public class BlogServiceImpl implements BlogService {
 
         post.setIsPublished(false);
 
-        BlogPost unpublishedPost = blogPostRepository.save(post);
+        BlogPost unpublishedPost = blogPostRepository.saveAndFlush(post);
+        blogSearch.postChanged(unpublishedPost);
 
         return new BlogPostDto(unpublishedPost);
     }
@@ -231,5 +262,6 @@ public class BlogServiceImpl implements BlogService {
         }
 
         blogPostRepository.delete(post);
+        blogSearch.postRemoved(id);
     }
 }
\ No newline at end of file
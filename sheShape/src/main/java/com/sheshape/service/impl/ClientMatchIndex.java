@@ -0,0 +1,387 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.model.GymProgram;
+import com.sheshape.model.profile.FitnessProfile;
+import com.sheshape.repository.profile.FitnessProfileRepository;
+import com.sheshape.security.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Every client's fitness profile packed into one {@code long} (level, goals,
+ * frequency, session length and days, a byte each) in a primitive array, so
+ * ranking all clients against a program is a single pass of table lookups
+ * with a bounded heap: no database reads, no per-client objects, no branches
+ * on the profile. Rebuilt at startup; after that a profile is re-read on a
+ * background thread once a write to it commits, as in {@link InStockIndex}.
+ */
+@Component
+public class ClientMatchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientMatchIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Byte positions in a packed feature vector
+    private static final int LEVEL = 0;
+    private static final int PRIMARY_GOAL = 1;
+    private static final int SECONDARY_GOALS = 2;
+    private static final int FREQUENCY = 3;
+    private static final int DURATION = 4;
+    private static final int DAYS = 5;
+    private static final int FEATURES = 6;
+
+    // Weights; a program that leaves a criterion unset scores it 0 for everyone
+    private static final int LEVEL_EXACT = 35;
+    private static final int LEVEL_ABOVE = 20;
+    private static final int LEVEL_BELOW = 10;
+    private static final int PRIMARY_GOAL_SHARED = 20;
+    private static final int SECONDARY_GOAL_SHARED = 5;
+    private static final int SECONDARY_GOALS_MAX = 10;
+    private static final int FREQUENCY_MET = 15;
+    private static final int FREQUENCY_NEAR = 7;
+    private static final int DURATION_CLOSE = 10;
+    private static final int DURATION_NEAR = 5;
+    private static final int DAYS_ALL = 10;
+
+    /**
+     * A program's scoring: for each feature, the points every possible byte
+     * value earns, so a client's score is six lookups.
+     */
+    public static final class Target {
+
+        private final int[] points = new int[FEATURES * 256];
+
+        private Target() {
+        }
+
+        public static Target of(GymProgram program, Double averageSessionMinutes) {
+            Target target = new Target();
+            int difficulty = program.getDifficultyLevel().ordinal();
+            int goals = goalMask(program.getTargetGoals());
+            int sessionsPerWeek = program.getSessionsPerWeek() != null ? program.getSessionsPerWeek() : 0;
+            int sessionMinutes = averageSessionMinutes != null ? (int) Math.round(averageSessionMinutes) : 0;
+            int days = dayMask(program.getScheduleDays());
+
+            for (int value = 1; value < 256; value++) {
+                if (value <= FitnessProfile.FitnessLevel.values().length) {
+                    // EXPERT clients fit ADVANCED programs like ADVANCED ones do
+                    int gap = Math.min(value - 1, GymProgram.DifficultyLevel.ADVANCED.ordinal()) - difficulty;
+                    target.set(LEVEL, value, gap == 0 ? LEVEL_EXACT : gap == 1 ? LEVEL_ABOVE : gap == -1 ? LEVEL_BELOW : 0);
+                }
+                if (value <= FitnessProfile.FitnessGoal.values().length && (goals & 1 << value - 1) != 0) {
+                    target.set(PRIMARY_GOAL, value, PRIMARY_GOAL_SHARED);
+                }
+                target.set(SECONDARY_GOALS, value,
+                        Math.min(Integer.bitCount(value & goals) * SECONDARY_GOAL_SHARED, SECONDARY_GOALS_MAX));
+                if (sessionsPerWeek != 0) {
+                    target.set(FREQUENCY, value, value >= sessionsPerWeek ? FREQUENCY_MET
+                            : value == sessionsPerWeek - 1 ? FREQUENCY_NEAR : 0);
+                }
+                if (sessionMinutes != 0) {
+                    int difference = Math.abs(value - sessionMinutes);
+                    target.set(DURATION, value, difference <= 10 ? DURATION_CLOSE : difference <= 20 ? DURATION_NEAR : 0);
+                }
+                if (days != 0) {
+                    target.set(DAYS, value, DAYS_ALL * Integer.bitCount(value & days) / Integer.bitCount(days));
+                }
+            }
+            return target;
+        }
+
+        private void set(int feature, int value, int score) {
+            points[feature * 256 + value] = score;
+        }
+
+        int score(long features) {
+            return points[(int) (features & 0xFF)]
+                    + points[256 + (int) (features >>> 8 & 0xFF)]
+                    + points[512 + (int) (features >>> 16 & 0xFF)]
+                    + points[768 + (int) (features >>> 24 & 0xFF)]
+                    + points[1024 + (int) (features >>> 32 & 0xFF)]
+                    + points[1280 + (int) (features >>> 40 & 0xFF)];
+        }
+    }
+
+    public record Match(long userId, int score) {
+    }
+
+    // One slot per client; replaced by a larger copy when full, so a reader's snapshot stays valid
+    private static final class Columns {
+        final long[] userIds;
+        final long[] features;
+        volatile int size;
+
+        Columns(int capacity) {
+            userIds = new long[capacity];
+            features = new long[capacity];
+        }
+
+        Columns grown() {
+            Columns grown = new Columns(userIds.length * 2);
+            System.arraycopy(userIds, 0, grown.userIds, 0, size);
+            System.arraycopy(features, 0, grown.features, 0, size);
+            grown.size = size;
+            return grown;
+        }
+    }
+
+    private static final Comparator<Match> BEST_FIRST =
+            Comparator.comparingInt(Match::score).reversed().thenComparingLong(Match::userId);
+
+    private final FitnessProfileRepository fitnessProfileRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Readers take the reference once; writers hold the monitor
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+    private Map<Long, Integer> slots = new HashMap<>();
+    private Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "client-match-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    public ClientMatchIndex(FitnessProfileRepository fitnessProfileRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.fitnessProfileRepository = fitnessProfileRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * The {@code limit} best-scoring clients (out of 100), best first and
+     * equal scores by user id. Clients in {@code excluded} are skipped.
+     */
+    public List<Match> top(Target target, int limit, Set<Long> excluded) {
+        Columns snapshot = columns;
+        int size = snapshot.size;
+        // Min-heap on score: the root is the weakest match kept so far
+        int[] heapScores = new int[limit];
+        long[] heapUsers = new long[limit];
+        int count = 0;
+
+        for (int slot = 0; slot < size; slot++) {
+            long userId = snapshot.userIds[slot];
+            if (userId == 0) {
+                continue;
+            }
+            int score = target.score(snapshot.features[slot]);
+            if (count == limit && score <= heapScores[0]) {
+                continue;
+            }
+            if (excluded.contains(userId)) {
+                continue;
+            }
+            if (count < limit) {
+                heapScores[count] = score;
+                heapUsers[count] = userId;
+                siftUp(heapScores, heapUsers, count++);
+            } else {
+                heapScores[0] = score;
+                heapUsers[0] = userId;
+                siftDown(heapScores, heapUsers, count);
+            }
+        }
+
+        Match[] matches = new Match[count];
+        for (int i = 0; i < count; i++) {
+            matches[i] = new Match(heapUsers[i], heapScores[i]);
+        }
+        Arrays.sort(matches, BEST_FIRST);
+        return Arrays.asList(matches);
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /** The user's fitness profile changed; it is re-read after commit. */
+    public void profileChanged(Long userId) {
+        AfterCommit.run(() -> scheduleRefresh(userId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        columns = new Columns(INITIAL_CAPACITY);
+        slots = new HashMap<>();
+        freeSlots = new ArrayDeque<>();
+
+        // Holding the monitor throughout: a refresh that commits meanwhile waits and then re-reads
+        long afterId = 0;
+        List<FitnessProfile> batch;
+        do {
+            long from = afterId;
+            batch = readOnlyTransaction.execute(status -> {
+                List<FitnessProfile> profiles = fitnessProfileRepository.findForMatchIndex(from, Limit.of(REBUILD_BATCH_SIZE));
+                profiles.forEach(this::index);
+                return profiles;
+            });
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+
+        logger.info("Indexed {} fitness profiles for client matching in {} ms",
+                slots.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Adds or replaces the profile's client. */
+    public synchronized void index(FitnessProfile profile) {
+        Integer slot = slots.get(profile.getUserId());
+        Columns current = columns;
+        boolean appended = false;
+        if (slot == null) {
+            slot = freeSlots.poll();
+            if (slot == null) {
+                if (current.size == current.userIds.length) {
+                    current = current.grown();
+                    columns = current;
+                }
+                slot = current.size;
+                appended = true;
+            }
+            slots.put(profile.getUserId(), slot);
+        }
+
+        // One write, so a concurrent scan sees either the old vector or the new one
+        current.features[slot] = pack(profile);
+        current.userIds[slot] = profile.getUserId();
+        if (appended) {
+            current.size = slot + 1;
+        }
+    }
+
+    public synchronized void remove(Long userId) {
+        Integer slot = slots.remove(userId);
+        if (slot != null) {
+            columns.userIds[slot] = 0;
+            freeSlots.push(slot);
+        }
+    }
+
+    private void scheduleRefresh(Long userId) {
+        // Already queued and not yet read: that read will see this commit too
+        if (pending.add(userId)) {
+            refresher.execute(() -> {
+                pending.remove(userId);
+                refresh(userId);
+            });
+        }
+    }
+
+    private synchronized void refresh(Long userId) {
+        readOnlyTransaction.executeWithoutResult(status ->
+                fitnessProfileRepository.findByUserId(userId).ifPresentOrElse(this::index, () -> remove(userId)));
+    }
+
+    private static long pack(FitnessProfile profile) {
+        long level = profile.getFitnessLevel() != null ? profile.getFitnessLevel().ordinal() + 1 : 0;
+        long primaryGoal = profile.getPrimaryGoal() != null ? profile.getPrimaryGoal().ordinal() + 1 : 0;
+        return level << 8 * LEVEL
+                | primaryGoal << 8 * PRIMARY_GOAL
+                | (long) goalMask(profile.getSecondaryGoals()) << 8 * SECONDARY_GOALS
+                | (long) clamp(profile.getWorkoutFrequency()) << 8 * FREQUENCY
+                | (long) clamp(profile.getWorkoutDuration()) << 8 * DURATION
+                | (long) dayMask(profile.getPreferredWorkoutDays()) << 8 * DAYS;
+    }
+
+    private static void siftUp(int[] scores, long[] users, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(scores, users, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] scores, long[] users, int count) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < count && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < count && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(scores, users, smallest, index);
+            index = smallest;
+        }
+    }
+
+    private static void swap(int[] scores, long[] users, int i, int j) {
+        int score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+        long user = users[i];
+        users[i] = users[j];
+        users[j] = user;
+    }
+
+    // Frequencies and minutes past 255 score like 255
+    private static int clamp(Integer value) {
+        return value == null || value < 0 ? 0 : Math.min(value, 255);
+    }
+
+    // Unknown names are ignored rather than failing the whole profile
+    private static int goalMask(List<String> goals) {
+        int mask = 0;
+        for (String goal : goals) {
+            for (FitnessProfile.FitnessGoal candidate : FitnessProfile.FitnessGoal.values()) {
+                if (candidate.name().equalsIgnoreCase(goal)) {
+                    mask |= 1 << candidate.ordinal();
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static int dayMask(List<String> days) {
+        int mask = 0;
+        for (String day : days) {
+            for (DayOfWeek candidate : DayOfWeek.values()) {
+                if (FitnessProfile.dayName(candidate).equalsIgnoreCase(day)) {
+                    mask |= 1 << candidate.ordinal();
+                }
+            }
+        }
+        return mask;
+    }
+}
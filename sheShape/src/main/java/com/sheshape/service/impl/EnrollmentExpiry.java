@@ -0,0 +1,121 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.config.SchedulingConfig;
+import com.sheshape.repository.UserGymProgramRepository;
+import com.sheshape.repository.UserNutritionPlanRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Moves gym program and nutrition plan enrollments past their expiry date to
+ * {@code EXPIRED}. Each run claims overdue rows in batches of
+ * {@code enrollments.expiry.batch-size}, one short transaction per batch,
+ * up to {@code enrollments.expiry.max-batches}; the rest wait for the next
+ * run. Batches are claimed with {@code SKIP LOCKED}, so every node can run
+ * the sweep without them blocking each other. Publishes, tagged by
+ * {@code type}, {@code enrollments.expiry.expired} (rows expired per run)
+ * and {@code enrollments.expiry.lag} (how long the oldest overdue row has
+ * waited, as of the end of the last run).
+ */
+@Component
+public class EnrollmentExpiry {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentExpiry.class);
+
+    static final String EXPIRED_METER = "enrollments.expiry.expired";
+    static final String LAG_METER = "enrollments.expiry.lag";
+
+    private record Sweep(String type,
+                         BiFunction<LocalDateTime, Integer, Integer> expireDue,
+                         Function<LocalDateTime, Optional<LocalDateTime>> oldestOverdue,
+                         DistributionSummary expired,
+                         AtomicLong lagSeconds) {
+    }
+
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+    private final List<Sweep> sweeps;
+
+    public EnrollmentExpiry(
+            UserGymProgramRepository userGymProgramRepository,
+            UserNutritionPlanRepository userNutritionPlanRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${enrollments.expiry.batch-size:500}") int batchSize,
+            @Value("${enrollments.expiry.max-batches:100}") int maxBatches) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.sweeps = List.of(
+                sweep("gym_program", userGymProgramRepository::expireDue,
+                        userGymProgramRepository::findOldestOverdueExpiry, meterRegistry),
+                sweep("nutrition_plan", userNutritionPlanRepository::expireDue,
+                        userNutritionPlanRepository::findOldestOverdueExpiry, meterRegistry));
+    }
+
+    @Scheduled(fixedDelayString = "${enrollments.expiry.interval:PT1M}", scheduler = SchedulingConfig.BACKGROUND_SCHEDULER)
+    public void expireDue() {
+        for (Sweep sweep : sweeps) {
+            try {
+                run(sweep);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to expire {} enrollments, will retry: {}", sweep.type(), e.getMessage());
+            }
+        }
+    }
+
+    private void run(Sweep sweep) {
+        LocalDateTime now = LocalDateTime.now();
+        int expired = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            Integer rows = transactionTemplate.execute(status -> sweep.expireDue().apply(now, batchSize));
+            expired += rows;
+            if (rows < batchSize) {
+                break;
+            }
+        }
+        sweep.expired().record(expired);
+
+        // Left over from a capped run, or claimed by another node's sweep that is still going
+        sweep.lagSeconds().set(sweep.oldestOverdue().apply(now)
+                .map(expiry -> Duration.between(expiry, now).toSeconds())
+                .orElse(0L));
+        if (expired > 0) {
+            logger.info("Expired {} {} enrollments", expired, sweep.type());
+        }
+    }
+
+    private static Sweep sweep(String type,
+                               BiFunction<LocalDateTime, Integer, Integer> expireDue,
+                               Function<LocalDateTime, Optional<LocalDateTime>> oldestOverdue,
+                               MeterRegistry meterRegistry) {
+        AtomicLong lagSeconds = new AtomicLong();
+        TimeGauge.builder(LAG_METER, lagSeconds, TimeUnit.SECONDS, AtomicLong::get)
+                .description("How long the oldest overdue enrollment has been waiting to expire")
+                .tag("type", type)
+                .register(meterRegistry);
+        DistributionSummary expired = DistributionSummary.builder(EXPIRED_METER)
+                .description("Enrollments moved to EXPIRED per sweep")
+                .tag("type", type)
+                .register(meterRegistry);
+        return new Sweep(type, expireDue, oldestOverdue, expired, lagSeconds);
+    }
+}
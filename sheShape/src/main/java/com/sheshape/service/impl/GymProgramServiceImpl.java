@@ -1,27 +1,46 @@
 package com.sheshape.service.impl;
 
+import com.sheshape.dto.ClientMatchDto;
+import com.sheshape.dto.CursorPage;
 import com.sheshape.dto.GymProgramDto;
 import com.sheshape.dto.GymSessionDto;
+import com.sheshape.dto.KeysetCursor;
+import com.sheshape.dto.ProgramEnrollmentDto;
+import com.sheshape.dto.RecommendationDto;
+import com.sheshape.dto.UserDto;
 import com.sheshape.dto.UserGymProgramDto;
 import com.sheshape.exception.BadRequestException;
+import com.sheshape.exception.PreconditionFailedException;
 import com.sheshape.exception.ResourceNotFoundException;
 import com.sheshape.model.GymProgram;
 import com.sheshape.model.GymSession;
 import com.sheshape.model.User;
 import com.sheshape.model.UserGymProgram;
+import com.sheshape.model.profile.FitnessProfile;
+import com.sheshape.recommendation.CoPurchaseRecommender;
 import com.sheshape.repository.GymProgramRepository;
 import com.sheshape.repository.GymSessionRepository;
 import com.sheshape.repository.UserGymProgramRepository;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.retry.RetryOnConflict;
 import com.sheshape.service.GymProgramService;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.DayOfWeek;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,32 +49,62 @@ public class GymProgramServiceImpl implements GymProgramService {
     private final GymSessionRepository gymSessionRepository;
     private final UserRepository userRepository;
     private final UserGymProgramRepository userGymProgramRepository;
+    private final ClientMatchIndex clientMatchIndex;
+    private final CoPurchaseRecommender coPurchaseRecommender;
+    private final int maxClientMatches;
 
     public GymProgramServiceImpl(
             GymProgramRepository gymProgramRepository,
             GymSessionRepository gymSessionRepository,
             UserRepository userRepository,
-            UserGymProgramRepository userGymProgramRepository) {
+            UserGymProgramRepository userGymProgramRepository,
+            ClientMatchIndex clientMatchIndex,
+            CoPurchaseRecommender coPurchaseRecommender,
+            @Value("${gym.matches.max-limit:100}") int maxClientMatches) {
         this.gymProgramRepository = gymProgramRepository;
         this.gymSessionRepository = gymSessionRepository;
         this.userRepository = userRepository;
         this.userGymProgramRepository = userGymProgramRepository;
+        this.clientMatchIndex = clientMatchIndex;
+        this.coPurchaseRecommender = coPurchaseRecommender;
+        this.maxClientMatches = maxClientMatches;
     }
 
     @Override
     public List<GymProgramDto> getAllGymPrograms() {
-        return gymProgramRepository.findAll().stream()
+        return gymProgramRepository.findAllForCatalog().stream()
                 .map(GymProgramDto::new)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<GymProgramDto> getActiveGymPrograms() {
-        return gymProgramRepository.findByIsActiveTrue().stream()
+        return gymProgramRepository.findActiveForCatalog().stream()
                 .map(GymProgramDto::new)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<GymProgramDto> getAllGymPrograms(String cursor, int size) {
+        CursorPage.checkSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return loadCatalogPage(gymProgramRepository.findIdsBefore(after.createdAt(), after.id(), Limit.of(size + 1)), size);
+    }
+
+    @Override
+    public CursorPage<GymProgramDto> getActiveGymPrograms(String cursor, int size) {
+        CursorPage.checkSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return loadCatalogPage(gymProgramRepository.findActiveIdsBefore(after.createdAt(), after.id(), Limit.of(size + 1)), size);
+    }
+
+    private CursorPage<GymProgramDto> loadCatalogPage(List<Long> ids, int size) {
+        List<GymProgram> programs = ids.isEmpty() ? List.of() : gymProgramRepository.findByIdInForCatalog(ids);
+        return CursorPage.of(programs, size,
+                program -> new KeysetCursor(program.getCreatedAt(), program.getId()),
+                GymProgramDto::new);
+    }
+
     @Override
     public GymProgramDto getGymProgramById(Long id) {
         GymProgram program = gymProgramRepository.findById(id)
@@ -66,7 +115,7 @@ public class GymProgramServiceImpl implements GymProgramService {
 
     @Override
     public List<GymProgramDto> getGymProgramsByTrainer(Long trainerId) {
-        return gymProgramRepository.findByTrainerId(trainerId).stream()
+        return gymProgramRepository.findByTrainerIdForCatalog(trainerId).stream()
                 .map(GymProgramDto::new)
                 .collect(Collectors.toList());
     }
@@ -99,6 +148,9 @@ public class GymProgramServiceImpl implements GymProgramService {
         program.setDurationDays(gymProgramDto.getDurationDays());
         program.setPrice(gymProgramDto.getPrice());
         program.setIsActive(gymProgramDto.getIsActive() != null ? gymProgramDto.getIsActive() : true);
+        program.setTargetGoals(targetGoals(gymProgramDto.getTargetGoals()));
+        program.setScheduleDays(scheduleDays(gymProgramDto.getScheduleDays()));
+        program.setSessionsPerWeek(gymProgramDto.getSessionsPerWeek());
         program.setTrainer(trainer);
 
         GymProgram savedProgram = gymProgramRepository.save(program);
@@ -107,10 +159,12 @@ public class GymProgramServiceImpl implements GymProgramService {
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public GymProgramDto updateGymProgram(Long id, GymProgramDto gymProgramDto) {
         GymProgram program = gymProgramRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Gym program not found with id: " + id));
+        PreconditionFailedException.checkVersion("Gym program", gymProgramDto.getVersion(), program.getVersion());
 
         // Get current authenticated user
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -152,7 +206,19 @@ public class GymProgramServiceImpl implements GymProgramService {
             program.setIsActive(gymProgramDto.getIsActive());
         }
 
-        GymProgram updatedProgram = gymProgramRepository.save(program);
+        if (gymProgramDto.getTargetGoals() != null) {
+            program.setTargetGoals(targetGoals(gymProgramDto.getTargetGoals()));
+        }
+
+        if (gymProgramDto.getScheduleDays() != null) {
+            program.setScheduleDays(scheduleDays(gymProgramDto.getScheduleDays()));
+        }
+
+        if (gymProgramDto.getSessionsPerWeek() != null) {
+            program.setSessionsPerWeek(gymProgramDto.getSessionsPerWeek());
+        }
+
+        GymProgram updatedProgram = gymProgramRepository.saveAndFlush(program);
 
         return new GymProgramDto(updatedProgram);
     }
@@ -302,10 +368,85 @@ public class GymProgramServiceImpl implements GymProgramService {
     }
 
     @Override
-    public List<UserGymProgramDto> getUsersForGymProgram(Long programId) {
-        return userGymProgramRepository.findByProgramId(programId).stream()
-                .map(UserGymProgramDto::new)
-                .collect(Collectors.toList());
+    public Page<ProgramEnrollmentDto> getEnrollmentsForGymProgram(Long programId, Set<String> expand, Pageable pageable) {
+        Set<String> expansions = expand != null ? expand : Set.of();
+        for (String expansion : expansions) {
+            if (!ProgramEnrollmentDto.EXPAND_PROGRAM.equals(expansion) && !ProgramEnrollmentDto.EXPAND_USER.equals(expansion)) {
+                throw new BadRequestException("Unknown expand value: " + expansion);
+            }
+        }
+
+        Page<ProgramEnrollmentDto> enrollments = userGymProgramRepository.findEnrollmentsByProgramId(programId, pageable);
+        if (enrollments.isEmpty()) {
+            return enrollments;
+        }
+
+        // Every row belongs to the same program, so it is loaded and mapped once
+        if (expansions.contains(ProgramEnrollmentDto.EXPAND_PROGRAM)) {
+            GymProgramDto program = gymProgramRepository.findByIdForCatalog(programId)
+                    .map(GymProgramDto::new)
+                    .orElseThrow(() -> new ResourceNotFoundException("Gym program not found with id: " + programId));
+            enrollments.forEach(enrollment -> enrollment.setProgram(program));
+        }
+
+        // Users for the whole page in one query
+        if (expansions.contains(ProgramEnrollmentDto.EXPAND_USER)) {
+            Set<Long> userIds = enrollments.stream()
+                    .map(ProgramEnrollmentDto::getUserId)
+                    .collect(Collectors.toSet());
+            Map<Long, UserDto> users = userRepository.findAllWithProfileByIdIn(userIds).stream()
+                    .collect(Collectors.toMap(User::getId, UserDto::new));
+            enrollments.forEach(enrollment -> enrollment.setUser(users.get(enrollment.getUserId())));
+        }
+
+        return enrollments;
+    }
+
+    @Override
+    public List<ClientMatchDto> getClientMatches(Long programId, int limit) {
+        if (limit < 1 || limit > maxClientMatches) {
+            throw new BadRequestException("Limit must be between 1 and " + maxClientMatches);
+        }
+
+        GymProgram program = gymProgramRepository.findById(programId)
+                .orElseThrow(() -> new ResourceNotFoundException("Gym program not found with id: " + programId));
+
+        // Same rule as editing: the program's own trainer or an admin
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User currentUser = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (!program.getTrainer().getId().equals(currentUser.getId()) &&
+                currentUser.getRole() != User.Role.ADMIN) {
+            throw new AccessDeniedException("You cannot view matches for this gym program");
+        }
+
+        ClientMatchIndex.Target target = ClientMatchIndex.Target.of(
+                program, gymSessionRepository.findAverageDurationMinutes(programId));
+        Set<Long> excluded = new HashSet<>(userGymProgramRepository.findUserIdsByProgramId(programId));
+        excluded.add(program.getTrainer().getId());
+        List<ClientMatchIndex.Match> matches = clientMatchIndex.top(target, limit, excluded);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, UserDto> users = userRepository.findAllWithProfileByIdIn(
+                        matches.stream().map(ClientMatchIndex.Match::userId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(User::getId, UserDto::new));
+        // A client deleted since it was indexed is dropped rather than shown without details
+        return matches.stream()
+                .filter(match -> users.containsKey(match.userId()))
+                .map(match -> new ClientMatchDto(match.userId(), match.score(), users.get(match.userId())))
+                .toList();
+    }
+
+    @Override
+    public List<RecommendationDto> getRecommendations(Long programId, int limit) {
+        if (limit < 1 || limit > coPurchaseRecommender.getNeighbours()) {
+            throw new BadRequestException("Limit must be between 1 and " + coPurchaseRecommender.getNeighbours());
+        }
+        return coPurchaseRecommender.forProgram(programId, limit).stream()
+                .map(RecommendationDto::new)
+                .toList();
     }
 
     @Override
@@ -347,6 +488,7 @@ public class GymProgramServiceImpl implements GymProgramService {
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public UserGymProgramDto updateUserGymProgramStatus(Long userId, Long programId, String status) {
         UserGymProgram userProgram = userGymProgramRepository.findByUserIdAndProgramId(userId, programId)
@@ -361,12 +503,13 @@ public class GymProgramServiceImpl implements GymProgramService {
             throw new BadRequestException("Invalid status: " + status);
         }
 
-        UserGymProgram updatedUserProgram = userGymProgramRepository.save(userProgram);
+        UserGymProgram updatedUserProgram = userGymProgramRepository.saveAndFlush(userProgram);
 
         return new UserGymProgramDto(updatedUserProgram);
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public UserGymProgramDto updateLastWatchedSession(Long userId, Long programId, Long sessionId) {
         UserGymProgram userProgram = userGymProgramRepository.findByUserIdAndProgramId(userId, programId)
@@ -385,8 +528,33 @@ public class GymProgramServiceImpl implements GymProgramService {
 
         // Update last watched session
         userProgram.setLastWatchedSessionId(sessionId);
-        UserGymProgram updatedUserProgram = userGymProgramRepository.save(userProgram);
+        UserGymProgram updatedUserProgram = userGymProgramRepository.saveAndFlush(userProgram);
 
         return new UserGymProgramDto(updatedUserProgram);
     }
+
+    private static List<String> targetGoals(List<String> goals) {
+        if (goals == null) {
+            return null;
+        }
+        return goals.stream().map(goal -> {
+            try {
+                return FitnessProfile.FitnessGoal.valueOf(goal).name();
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Invalid target goal: " + goal);
+            }
+        }).distinct().toList();
+    }
+
+    private static List<String> scheduleDays(List<String> days) {
+        if (days == null) {
+            return null;
+        }
+        return days.stream().map(day -> Arrays.stream(DayOfWeek.values())
+                .map(FitnessProfile::dayName)
+                .filter(name -> name.equalsIgnoreCase(day))
+                .findFirst()
+                .orElseThrow(() -> new BadRequestException("Invalid schedule day: " + day)))
+                .distinct().toList();
+    }
 }
\ No newline at end of file
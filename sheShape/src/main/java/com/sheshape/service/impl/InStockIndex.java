@@ -0,0 +1,188 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.dto.KeysetCursor;
+import com.sheshape.model.Product;
+import com.sheshape.repository.ProductRepository;
+import com.sheshape.security.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ids of active, in-stock products, overall and per category, in the catalog's
+ * {@code (created_at DESC, id DESC)} order. A storefront page is a seek into a
+ * skip list, so it costs the page size however large the catalog is. Rebuilt
+ * at startup; after that only products whose stock crosses zero, or whose
+ * listing fields change, are re-read, on a background thread once the write
+ * commits. Reading the committed row (rather than applying the counts the
+ * writer saw) lets refreshes that race each other settle on the latest state.
+ */
+@Component
+public class InStockIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(InStockIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private static final Comparator<KeysetCursor> NEWEST_FIRST =
+            Comparator.comparing(KeysetCursor::createdAt).thenComparing(KeysetCursor::id).reversed();
+
+    // Rows written before created_at was populated sort last
+    private static final LocalDateTime UNDATED = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private record Entry(KeysetCursor key, Set<String> categories) {
+    }
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final NavigableSet<KeysetCursor> all = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    private final Map<String, NavigableSet<KeysetCursor>> byCategory = new ConcurrentHashMap<>();
+
+    // Writers hold the monitor; readers only touch the concurrent sets
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    // A single thread, so a refresh never waits for a connection while holding the monitor
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "in-stock-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    public InStockIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Up to {@code limit} positions after {@code after}, newest first. A null
+     * category means the whole catalog.
+     */
+    public List<KeysetCursor> page(String category, KeysetCursor after, int limit) {
+        NavigableSet<KeysetCursor> ids = category == null ? all : byCategory.get(category);
+        if (ids == null) {
+            return List.of();
+        }
+
+        List<KeysetCursor> page = new ArrayList<>(limit);
+        for (KeysetCursor key : ids.tailSet(after, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(key);
+        }
+        return page;
+    }
+
+    /** Stock moved; the product is re-read after commit only if it crossed zero. */
+    public void inventoryChanged(Long id, int previousCount, int newCount) {
+        if ((previousCount > 0) != (newCount > 0)) {
+            AfterCommit.run(() -> scheduleRefresh(id));
+        }
+    }
+
+    /** Created, edited, (de)activated or deleted: activity, stock and categories may all have changed. */
+    public void productChanged(Long id) {
+        AfterCommit.run(() -> scheduleRefresh(id));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        entries.keySet().forEach(this::removeFromSets);
+        entries.clear();
+
+        // Holding the monitor throughout: a refresh that commits meanwhile waits and then re-reads
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            long from = afterId;
+            ids = readOnlyTransaction.execute(status -> {
+                List<Long> page = productRepository.findInStockIdsForIndex(from, Limit.of(REBUILD_BATCH_SIZE));
+                if (!page.isEmpty()) {
+                    productRepository.findWithCategoriesByIdIn(page).forEach(this::add);
+                }
+                return page;
+            });
+            if (!ids.isEmpty()) {
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == REBUILD_BATCH_SIZE);
+
+        logger.info("Indexed {} in-stock products across {} categories in {} ms",
+                all.size(), byCategory.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void scheduleRefresh(Long id) {
+        // Already queued and not yet read: that read will see this commit too
+        if (pending.add(id)) {
+            refresher.execute(() -> {
+                pending.remove(id);
+                refresh(id);
+            });
+        }
+    }
+
+    private synchronized void refresh(Long id) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            remove(id);
+            productRepository.findById(id)
+                    .filter(product -> Boolean.TRUE.equals(product.getIsActive()) && product.getInventoryCount() > 0)
+                    .ifPresent(this::add);
+        });
+    }
+
+    private void add(Product product) {
+        LocalDateTime createdAt = product.getCreatedAt() != null ? product.getCreatedAt() : UNDATED;
+        Entry entry = new Entry(new KeysetCursor(createdAt, product.getId()), Set.copyOf(product.getCategories()));
+        entries.put(product.getId(), entry);
+        all.add(entry.key());
+        entry.categories().forEach(category ->
+                byCategory.computeIfAbsent(category, c -> new ConcurrentSkipListSet<>(NEWEST_FIRST)).add(entry.key()));
+    }
+
+    private void remove(Long id) {
+        removeFromSets(id);
+        entries.remove(id);
+    }
+
+    private void removeFromSets(Long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return;
+        }
+        all.remove(entry.key());
+        entry.categories().forEach(category -> {
+            NavigableSet<KeysetCursor> ids = byCategory.get(category);
+            if (ids != null) {
+                ids.remove(entry.key());
+            }
+        });
+    }
+}
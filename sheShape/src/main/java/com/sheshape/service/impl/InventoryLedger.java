@@ -0,0 +1,273 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.model.Product;
+import com.sheshape.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory reservations for flash sales. While a product is tracked, stock is
+ * claimed from the database in blocks (one conditional update per block) and
+ * handed out from per-thread stripes, so a hot product doesn't serialize every
+ * checkout on its row. The database count always excludes what the ledger holds,
+ * so the two paths can never oversell together; a crash can only strand held
+ * units, never sell them twice. Idle stock is returned by {@link #flush()}.
+ */
+@Component
+public class InventoryLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLedger.class);
+
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache catalogCache;
+    private final InStockIndex inStockIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int stripes;
+    private final int blockSize;
+
+    private final Map<Long, StripedStock> tracked = new ConcurrentHashMap<>();
+
+    public InventoryLedger(
+            ProductRepository productRepository,
+            ProductCatalogCache catalogCache,
+            InStockIndex inStockIndex,
+            PlatformTransactionManager transactionManager,
+            @Value("${inventory.ledger.stripes:0}") int stripes,
+            @Value("${inventory.ledger.block-size:50}") int blockSize) {
+        this.productRepository = productRepository;
+        this.catalogCache = catalogCache;
+        this.inStockIndex = inStockIndex;
+        // Claims commit on their own so held stock is never rolled back into the row
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public boolean isTracked(Long productId) {
+        return tracked.containsKey(productId);
+    }
+
+    public void track(Long productId) {
+        tracked.computeIfAbsent(productId, id -> new StripedStock(stripes));
+    }
+
+    /** Stops tracking the product and returns the stock it still holds to the database. */
+    public void untrack(Long productId) {
+        StripedStock stock = tracked.remove(productId);
+        if (stock != null) {
+            synchronized (stock) {
+                returnToDatabase(productId, stock.drain());
+            }
+        }
+    }
+
+    /** Units held in memory for the product, not yet reserved. */
+    public int held(Long productId) {
+        StripedStock stock = tracked.get(productId);
+        return stock == null ? 0 : stock.total();
+    }
+
+    public boolean tryReserve(Long productId, int quantity) {
+        StripedStock stock = tracked.get(productId);
+        if (stock == null) {
+            return claim(productId, quantity, quantity) == quantity;
+        }
+
+        stock.markUsed();
+        if (stock.tryTake(quantity)) {
+            return true;
+        }
+
+        // Slow path: pool the stripes and top up from the database
+        synchronized (stock) {
+            if (stock.tryTake(quantity)) {
+                return true;
+            }
+            if (tracked.get(productId) != stock) {
+                // Untracked while we waited; reserve straight from the database
+                return claim(productId, quantity, quantity) == quantity;
+            }
+
+            int held = stock.drain();
+            if (held >= quantity) {
+                stock.add(held - quantity);
+                return true;
+            }
+
+            int needed = quantity - held;
+            int claimed = claim(productId, Math.max(needed, blockSize), needed);
+            if (claimed == 0) {
+                stock.add(held);
+                return false;
+            }
+            stock.add(held + claimed - quantity);
+            return true;
+        }
+    }
+
+    /** Gives back units reserved by {@link #tryReserve} that weren't sold after all. */
+    public void release(Long productId, int quantity) {
+        StripedStock stock = tracked.get(productId);
+        if (stock != null) {
+            stock.add(quantity);
+        } else {
+            returnToDatabase(productId, quantity);
+        }
+    }
+
+    /**
+     * Gives the units back if the caller's transaction rolls back, since the ledger
+     * isn't part of it. Does nothing outside a transaction.
+     */
+    public void releaseOnRollback(Long productId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    release(productId, quantity);
+                }
+            }
+        });
+    }
+
+    /** Returns the held stock of products that saw no reservations since the last run. */
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval:PT5S}")
+    public void flush() {
+        tracked.forEach((productId, stock) -> {
+            if (!stock.resetUsed()) {
+                synchronized (stock) {
+                    returnToDatabase(productId, stock.drain());
+                }
+            }
+        });
+    }
+
+    // Moves between `minimum` and `wanted` units out of the row, or nothing if fewer than `minimum` are left
+    private int claim(Long productId, int wanted, int minimum) {
+        Integer claimed = transactionTemplate.execute(status -> {
+            Product product = productRepository.findByIdForUpdate(productId).orElse(null);
+            if (product == null || product.getInventoryCount() < minimum) {
+                return 0;
+            }
+
+            int available = product.getInventoryCount();
+            int take = Math.min(available, wanted);
+            productRepository.decrementInventory(productId, take, LocalDateTime.now());
+            catalogCache.inventoryChanged(productId);
+            inStockIndex.inventoryChanged(productId, available, available - take);
+            return take;
+        });
+        return claimed == null ? 0 : claimed;
+    }
+
+    private void returnToDatabase(Long productId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int before = productRepository.findInventoryCountById(productId).orElse(0);
+                productRepository.incrementInventory(productId, quantity, LocalDateTime.now());
+                catalogCache.inventoryChanged(productId);
+                inStockIndex.inventoryChanged(productId, before, before + quantity);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Failed to return {} units of product {} to the database: {}", quantity, productId, e.getMessage());
+            StripedStock stock = tracked.get(productId);
+            if (stock != null) {
+                stock.add(quantity);
+            }
+        }
+    }
+
+    /**
+     * A product's held stock split over independent counters. Threads start on a
+     * random stripe, so concurrent reservations rarely CAS on the same one.
+     */
+    private static final class StripedStock {
+
+        private final AtomicInteger[] stripes;
+        private volatile boolean used;
+
+        StripedStock(int count) {
+            this.stripes = new AtomicInteger[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new AtomicInteger();
+            }
+        }
+
+        boolean tryTake(int quantity) {
+            int start = ThreadLocalRandom.current().nextInt(stripes.length);
+            for (int i = 0; i < stripes.length; i++) {
+                AtomicInteger stripe = stripes[(start + i) % stripes.length];
+                int available = stripe.get();
+                while (available >= quantity) {
+                    if (stripe.compareAndSet(available, available - quantity)) {
+                        return true;
+                    }
+                    available = stripe.get();
+                }
+            }
+            return false;
+        }
+
+        // Spreads units evenly, remainder to the first stripes
+        void add(int quantity) {
+            int share = quantity / stripes.length;
+            int remainder = quantity % stripes.length;
+            for (int i = 0; i < stripes.length; i++) {
+                int units = share + (i < remainder ? 1 : 0);
+                if (units > 0) {
+                    stripes[i].addAndGet(units);
+                }
+            }
+        }
+
+        int drain() {
+            int total = 0;
+            for (AtomicInteger stripe : stripes) {
+                total += stripe.getAndSet(0);
+            }
+            return total;
+        }
+
+        int total() {
+            int total = 0;
+            for (AtomicInteger stripe : stripes) {
+                total += stripe.get();
+            }
+            return total;
+        }
+
+        // Avoids a shared write on every reservation once the flag is already set
+        void markUsed() {
+            if (!used) {
+                used = true;
+            }
+        }
+
+        boolean resetUsed() {
+            boolean wasUsed = used;
+            used = false;
+            return wasUsed;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.sheshape.service.impl;
 
+import com.sheshape.dto.CursorPage;
+import com.sheshape.dto.KeysetCursor;
 import com.sheshape.dto.NutritionPlanDto;
 import com.sheshape.dto.UserNutritionPlanDto;
 import com.sheshape.exception.BadRequestException;
+import com.sheshape.exception.PreconditionFailedException;
 import com.sheshape.exception.ResourceNotFoundException;
 import com.sheshape.model.NutritionPlan;
 import com.sheshape.model.User;
@@ -10,8 +13,10 @@ import com.sheshape.model.UserNutritionPlan;
 import com.sheshape.repository.NutritionPlanRepository;
 import com.sheshape.repository.UserNutritionPlanRepository;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.retry.RetryOnConflict;
 import com.sheshape.service.NutritionPlanService;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -51,6 +56,27 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<NutritionPlanDto> getAllNutritionPlans(String cursor, int size) {
+        CursorPage.checkSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return loadCatalogPage(nutritionPlanRepository.findIdsBefore(after.createdAt(), after.id(), Limit.of(size + 1)), size);
+    }
+
+    @Override
+    public CursorPage<NutritionPlanDto> getActiveNutritionPlans(String cursor, int size) {
+        CursorPage.checkSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return loadCatalogPage(nutritionPlanRepository.findActiveIdsBefore(after.createdAt(), after.id(), Limit.of(size + 1)), size);
+    }
+
+    private CursorPage<NutritionPlanDto> loadCatalogPage(List<Long> ids, int size) {
+        List<NutritionPlan> plans = ids.isEmpty() ? List.of() : nutritionPlanRepository.findByIdInForCatalog(ids);
+        return CursorPage.of(plans, size,
+                plan -> new KeysetCursor(plan.getCreatedAt(), plan.getId()),
+                NutritionPlanDto::new);
+    }
+
     @Override
     public NutritionPlanDto getNutritionPlanById(Long id) {
         NutritionPlan plan = nutritionPlanRepository.findById(id)
@@ -94,10 +120,12 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public NutritionPlanDto updateNutritionPlan(Long id, NutritionPlanDto nutritionPlanDto) {
         NutritionPlan plan = nutritionPlanRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Nutrition plan not found with id: " + id));
+        PreconditionFailedException.checkVersion("Nutrition plan", nutritionPlanDto.getVersion(), plan.getVersion());
         
         // Get current authenticated user
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -131,7 +159,7 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
             plan.setIsActive(nutritionPlanDto.getIsActive());
         }
         
-        NutritionPlan updatedPlan = nutritionPlanRepository.save(plan);
+        NutritionPlan updatedPlan = nutritionPlanRepository.saveAndFlush(plan);
         
         return new NutritionPlanDto(updatedPlan);
     }
@@ -217,6 +245,7 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public UserNutritionPlanDto updateUserNutritionPlanStatus(Long userId, Long planId, String status) {
         UserNutritionPlan userPlan = userNutritionPlanRepository.findByUserIdAndPlanId(userId, planId)
@@ -231,7 +260,7 @@ public class NutritionPlanServiceImpl implements NutritionPlanService {
             throw new BadRequestException("Invalid status: " + status);
         }
         
-        UserNutritionPlan updatedUserPlan = userNutritionPlanRepository.save(userPlan);
+        UserNutritionPlan updatedUserPlan = userNutritionPlanRepository.saveAndFlush(userPlan);
         
         return new UserNutritionPlanDto(updatedUserPlan);
     }
@@ -0,0 +1,174 @@
+package com.sheshape.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sheshape.dto.ProductDto;
+import com.sheshape.security.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Two-tier read-through cache for the storefront. Product entries hold the full
+ * {@link ProductDto}; listing entries hold only the ids and total of a page, so
+ * a product edit evicts one entry and listings are flushed only when membership
+ * or ordering may have changed. Each key is loaded by a single thread while
+ * concurrent readers wait for it, and hit/miss counts are published as the
+ * {@code cache.*} metrics tagged {@code cache=products} and {@code cache=products.listings}.
+ */
+@Component
+public class ProductCatalogCache {
+
+    static final String PRODUCTS_CACHE = "products";
+    static final String LISTINGS_CACHE = "products.listings";
+
+    public enum Listing {
+        ACTIVE,
+        CATEGORY
+    }
+
+    private record ListingKey(Listing listing, String category, int page, int size, Sort sort) {
+    }
+
+    private record ListingEntry(List<Long> ids, long total) {
+    }
+
+    private record LoadedListing(List<ProductDto> rows, long total) {
+    }
+
+    private final Cache<Long, ProductDto> products;
+    private final Cache<ListingKey, ListingEntry> listings;
+
+    // Bumped on every committed write; a load that overlaps one is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCatalogCache(
+            MeterRegistry meterRegistry,
+            @Value("${products.cache.max-size:10000}") long maxSize,
+            @Value("${products.cache.ttl:PT10M}") Duration ttl,
+            @Value("${products.cache.listings.max-size:1000}") long listingsMaxSize,
+            @Value("${products.cache.listings.ttl:PT2M}") Duration listingsTtl) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.listings = Caffeine.newBuilder()
+                .maximumSize(listingsMaxSize)
+                .expireAfterWrite(listingsTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, PRODUCTS_CACHE);
+        CaffeineCacheMetrics.monitor(meterRegistry, listings, LISTINGS_CACHE);
+    }
+
+    public ProductDto getProduct(Long id, Function<Long, ProductDto> loader) {
+        long observed = generation.get();
+        ProductDto product = products.get(id, loader);
+        if (generation.get() != observed) {
+            products.invalidate(id);
+        }
+        return product;
+    }
+
+    /**
+     * Serves a page of a listing. On a miss {@code loader} runs the listing query and
+     * its rows also seed the product tier; on a hit the rows are read from the
+     * product tier, with any evicted products fetched in one call to {@code productLoader}.
+     */
+    public Page<ProductDto> getPage(Listing listing, String category, Pageable pageable,
+                                    Supplier<Page<ProductDto>> loader,
+                                    Function<Collection<Long>, List<ProductDto>> productLoader) {
+        ListingKey key = new ListingKey(listing, category,
+                pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
+        ListingEntry entry = getListing(key, () -> {
+            Page<ProductDto> page = loader.get();
+            return new LoadedListing(page.getContent(), page.getTotalElements());
+        });
+        return new PageImpl<>(resolve(entry.ids(), productLoader), pageable, entry.total());
+    }
+
+    /** Products in the given order, from the product tier where possible; missing ids are skipped. */
+    public List<ProductDto> getProducts(List<Long> ids, Function<Collection<Long>, List<ProductDto>> productLoader) {
+        return resolve(ids, productLoader);
+    }
+
+    /** A product changed in a way that can't move it between or within listings (images, description). */
+    public void productChanged(Long id) {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            products.invalidate(id);
+        });
+    }
+
+    /** A product was created, deleted, (de)activated or had a listed or sortable field changed. */
+    public void listingsChanged(Long id) {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            if (id != null) {
+                products.invalidate(id);
+            }
+            listings.invalidateAll();
+        });
+    }
+
+    /**
+     * Stock moved. Only pages sorted by inventory or last update can be affected;
+     * in-stock membership is tracked by {@link InStockIndex}.
+     */
+    public void inventoryChanged(Long id) {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            products.invalidate(id);
+            listings.asMap().keySet().removeIf(key ->
+                    key.sort().getOrderFor("inventoryCount") != null
+                            || key.sort().getOrderFor("updatedAt") != null);
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        products.invalidateAll();
+        listings.invalidateAll();
+    }
+
+    private ListingEntry getListing(ListingKey key, Supplier<LoadedListing> loader) {
+        long observed = generation.get();
+        ListingEntry entry = listings.get(key, k -> {
+            LoadedListing loaded = loader.get();
+            loaded.rows().forEach(product -> products.put(product.getId(), product));
+            return new ListingEntry(loaded.rows().stream().map(ProductDto::getId).toList(), loaded.total());
+        });
+
+        if (generation.get() != observed) {
+            // A write committed while this was loading: serve it once but don't keep it
+            listings.invalidate(key);
+            products.invalidateAll(entry.ids());
+        }
+        return entry;
+    }
+
+    private List<ProductDto> resolve(List<Long> ids, Function<Collection<Long>, List<ProductDto>> productLoader) {
+        Map<Long, ProductDto> byId = products.getAll(ids, missing -> productLoader.apply(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(ProductDto::getId, Function.identity())));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
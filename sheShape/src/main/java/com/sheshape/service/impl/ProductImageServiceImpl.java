@@ -1,6 +1,7 @@
 // com.sheshape.service.impl.ProductImageServiceImpl.java
 package com.sheshape.service.impl;
 
+import com.sheshape.exception.BadRequestException;
 import com.sheshape.exception.ResourceNotFoundException;
 import com.sheshape.model.Product;
 import com.sheshape.model.ProductImage;
@@ -10,19 +11,26 @@ import com.sheshape.service.ProductImageService;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ProductImageServiceImpl implements ProductImageService {
 
     private final ProductImageRepository productImageRepository;
     private final ProductRepository productRepository;
+    private final ProductCatalogCache catalogCache;
     
     public ProductImageServiceImpl(
             ProductImageRepository productImageRepository,
-            ProductRepository productRepository) {
+            ProductRepository productRepository,
+            ProductCatalogCache catalogCache) {
         this.productImageRepository = productImageRepository;
         this.productRepository = productRepository;
+        this.catalogCache = catalogCache;
     }
 
     @Override
@@ -49,7 +57,7 @@ public class ProductImageServiceImpl implements ProductImageService {
         
         // If this is set as main, reset all other main images
         if (isMain) {
-            resetMainImages(productId);
+            productImageRepository.clearMainImage(productId);
         }
         
         // Determine position (add at the end)
@@ -62,6 +70,7 @@ public class ProductImageServiceImpl implements ProductImageService {
         image.setMain(isMain);
         image.setPosition(position);
         
+        catalogCache.productChanged(productId);
         return productImageRepository.save(image);
     }
 
@@ -72,7 +81,7 @@ public class ProductImageServiceImpl implements ProductImageService {
         
         // If this is set as main, reset all other main images
         if (isMain && !image.isMain()) {
-            resetMainImages(image.getProduct().getId());
+            productImageRepository.clearMainImage(image.getProduct().getId());
         }
         
         image.setMain(isMain);
@@ -80,6 +89,7 @@ public class ProductImageServiceImpl implements ProductImageService {
             image.setPosition(position);
         }
         
+        catalogCache.productChanged(image.getProduct().getId());
         return productImageRepository.save(image);
     }
 
@@ -87,88 +97,71 @@ public class ProductImageServiceImpl implements ProductImageService {
     @Transactional
     public void deleteProductImage(Long imageId) {
         ProductImage image = getProductImageById(imageId);
+        Long productId = image.getProduct().getId();
         
-        // If this was the main image, pick another one as main (if any exists)
+        productImageRepository.delete(image);
+        
+        // If this was the main image, promote the first remaining one. The lookup
+        // flushes the delete first, so there are never two main images at once.
         if (image.isMain()) {
-            List<ProductImage> images = productImageRepository.findByProductIdOrderByPositionAsc(
-                    image.getProduct().getId());
-            
-            // Find another image to set as main (first one that's not the current image)
-            images.stream()
-                    .filter(img -> !img.getId().equals(imageId))
+            productImageRepository.findByProductIdOrderByPositionAsc(productId).stream()
                     .findFirst()
-                    .ifPresent(newMain -> {
-                        newMain.setMain(true);
-                        productImageRepository.save(newMain);
-                    });
+                    .ifPresent(newMain -> productImageRepository.markMainImage(productId, newMain.getId()));
         }
         
-        productImageRepository.deleteById(imageId);
+        catalogCache.productChanged(productId);
     }
 
     @Override
     @Transactional
     public ProductImage setMainImage(Long imageId) {
         ProductImage image = getProductImageById(imageId);
+        Long productId = image.getProduct().getId();
         
-        // Reset all main images for this product
-        resetMainImages(image.getProduct().getId());
+        // Clear the current main before flagging this one
+        productImageRepository.clearMainImage(productId);
+        productImageRepository.markMainImage(productId, imageId);
         
-        // Set this image as main
-        image.setMain(true);
-        return productImageRepository.save(image);
+        catalogCache.productChanged(productId);
+        return getProductImageById(imageId);
     }
 
     @Override
     @Transactional
-    public void updateImagePositions(List<ProductImage> updatedImages) {
+    public void updateImagePositions(Long productId, List<ProductImage> updatedImages) {
+        Set<Long> productImageIds = new HashSet<>(productImageRepository.findIdsByProductId(productId));
+        
+        Map<Long, Integer> positions = new LinkedHashMap<>();
+        Long mainImageId = null;
         for (ProductImage image : updatedImages) {
-            ProductImage existingImage = productImageRepository.findById(image.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product image not found with id: " + image.getId()));
-            
-            existingImage.setPosition(image.getPosition());
-            if (image.isMain() && !existingImage.isMain()) {
-                // Reset main images if this one is becoming main
-                resetMainImages(existingImage.getProduct().getId());
-                existingImage.setMain(true);
-            } else if (!image.isMain() && existingImage.isMain()) {
-                // If we're unsetting the main, ensure another image becomes main
-                List<ProductImage> otherImages = productImageRepository.findByProductIdOrderByPositionAsc(
-                        existingImage.getProduct().getId());
-                ProductImage newMain = otherImages.stream()
-                        .filter(img -> !img.getId().equals(existingImage.getId()))
-                        .findFirst()
-                        .orElse(null);
-                
-                if (newMain != null) {
-                    newMain.setMain(true);
-                    productImageRepository.save(newMain);
-                } else {
-                    // If no other images, keep this one as main
-                    continue;
+            if (!productImageIds.contains(image.getId())) {
+                throw new ResourceNotFoundException(
+                        "Product image not found with id: " + image.getId() + " for product: " + productId);
+            }
+            if (image.getPosition() != null) {
+                positions.put(image.getId(), image.getPosition());
+            }
+            if (image.isMain()) {
+                if (mainImageId != null && !mainImageId.equals(image.getId())) {
+                    throw new BadRequestException("Only one image can be the main image");
                 }
+                mainImageId = image.getId();
             }
-            
-            productImageRepository.save(existingImage);
         }
+        
+        // Four statements however many images move: the id check, clear and set the main, positions
+        if (mainImageId != null) {
+            productImageRepository.clearMainImage(productId);
+            productImageRepository.markMainImage(productId, mainImageId);
+        }
+        productImageRepository.updatePositions(productId, positions);
+        catalogCache.productChanged(productId);
     }
 
     @Override
     @Transactional
     public void deleteAllProductImages(Long productId) {
         productImageRepository.deleteByProductId(productId);
-    }
-    
-    /**
-     * Helper method to reset all main images for a product
-     */
-    private void resetMainImages(Long productId) {
-        List<ProductImage> images = productImageRepository.findByProductIdOrderByPositionAsc(productId);
-        for (ProductImage img : images) {
-            if (img.isMain()) {
-                img.setMain(false);
-                productImageRepository.save(img);
-            }
-        }
+        catalogCache.productChanged(productId);
     }
 }
\ No newline at end of file
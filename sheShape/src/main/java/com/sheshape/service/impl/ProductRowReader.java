@@ -0,0 +1,237 @@
+package com.sheshape.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sheshape.dto.ProductTransferRow;
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.service.ProductTransferService.Format;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads an import file one product at a time, so memory use is bounded by the
+ * longest row rather than the file. A row that can't be parsed comes back with
+ * an error instead of ending the import.
+ */
+abstract class ProductRowReader implements Closeable {
+
+    static final List<String> CSV_COLUMNS = List.of("id", "name", "description", "price", "discountPrice",
+            "inventoryCount", "isActive", "categories", "imageKeys");
+
+    // Separates the entries of the categories and imageKeys columns
+    static final String LIST_SEPARATOR = "|";
+
+    // A quote left open would otherwise swallow the rest of the file into one field
+    private static final int MAX_ROW_LENGTH = 1 << 20;
+
+    record Row(long number, ProductTransferRow product, String error) {
+    }
+
+    protected final BufferedReader reader;
+    protected long rowNumber;
+
+    private ProductRowReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    static ProductRowReader open(Format format, InputStream input, ObjectMapper objectMapper) throws IOException {
+        return format == Format.CSV ? new Csv(input) : new Ndjson(input, objectMapper);
+    }
+
+    /** The next row, or null at the end of the input. Blank lines are skipped. */
+    abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static List<String> splitList(String value) {
+        List<String> entries = new ArrayList<>();
+        if (value == null) {
+            return entries;
+        }
+        for (String entry : value.split("\\" + LIST_SEPARATOR)) {
+            if (!entry.isBlank()) {
+                entries.add(entry.trim());
+            }
+        }
+        return entries;
+    }
+
+    private static final class Ndjson extends ProductRowReader {
+
+        private final ObjectMapper objectMapper;
+
+        Ndjson(InputStream input, ObjectMapper objectMapper) {
+            super(input);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            rowNumber++;
+            try {
+                ProductTransferRow product = objectMapper.readValue(line, ProductTransferRow.class);
+                if (product.getCategories() == null) {
+                    product.setCategories(new ArrayList<>());
+                }
+                if (product.getImageKeys() == null) {
+                    product.setImageKeys(new ArrayList<>());
+                }
+                return new Row(rowNumber, product, null);
+            } catch (JsonProcessingException e) {
+                return new Row(rowNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /** RFC 4180: a header row naming the columns, quoted fields may hold commas, quotes and newlines. */
+    private static final class Csv extends ProductRowReader {
+
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        Csv(InputStream input) throws IOException {
+            super(input);
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new BadRequestException("The CSV file is empty");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).trim();
+                String column = CSV_COLUMNS.stream().filter(name::equalsIgnoreCase).findFirst()
+                        .orElseThrow(() -> new BadRequestException("Unknown CSV column: " + name
+                                + " (expected " + String.join(", ", CSV_COLUMNS) + ")"));
+                columns.put(column, i);
+            }
+            for (String required : List.of("name", "price", "inventoryCount")) {
+                if (!columns.containsKey(required)) {
+                    throw new BadRequestException("Missing CSV column: " + required);
+                }
+            }
+        }
+
+        @Override
+        Row next() throws IOException {
+            List<String> record;
+            do {
+                record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+            } while (record.size() == 1 && record.get(0).isBlank());
+
+            rowNumber++;
+            try {
+                ProductTransferRow product = new ProductTransferRow();
+                String id = field(record, "id");
+                product.setId(id == null ? null : parse("id", id, Long::valueOf));
+                product.setName(field(record, "name"));
+                product.setDescription(field(record, "description"));
+                String price = field(record, "price");
+                product.setPrice(price == null ? null : parse("price", price, BigDecimal::new));
+                String discountPrice = field(record, "discountPrice");
+                product.setDiscountPrice(discountPrice == null ? null
+                        : parse("discountPrice", discountPrice, BigDecimal::new));
+                String inventoryCount = field(record, "inventoryCount");
+                product.setInventoryCount(inventoryCount == null ? null
+                        : parse("inventoryCount", inventoryCount, Integer::valueOf));
+                String isActive = field(record, "isActive");
+                product.setIsActive(isActive == null ? null : parse("isActive", isActive, Csv::bool));
+                product.setCategories(splitList(field(record, "categories")));
+                product.setImageKeys(splitList(field(record, "imageKeys")));
+                return new Row(rowNumber, product, null);
+            } catch (IllegalArgumentException e) {
+                return new Row(rowNumber, null, e.getMessage());
+            }
+        }
+
+        // Empty cells are nulls
+        private String field(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+                return null;
+            }
+            return record.get(index);
+        }
+
+        private static <T> T parse(String column, String value, Function<String, T> parser) {
+            try {
+                return parser.apply(value.trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid " + column + ": '" + value + "'");
+            }
+        }
+
+        private static Boolean bool(String value) {
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "true", "1", "yes" -> true;
+                case "false", "0", "no" -> false;
+                default -> throw new IllegalArgumentException(value);
+            };
+        }
+
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            int length = 0;
+            int c;
+            while ((c = reader.read()) != -1) {
+                read = true;
+                if (++length > MAX_ROW_LENGTH) {
+                    throw new IOException("Row " + (rowNumber + 1) + " is longer than " + MAX_ROW_LENGTH
+                            + " characters; is a quote left open?");
+                }
+                if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                        continue;
+                    }
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -1,21 +1,40 @@
 package com.sheshape.service.impl;
 
+import com.sheshape.dto.CursorPage;
+import com.sheshape.dto.KeysetCursor;
 import com.sheshape.dto.ProductDto;
 import com.sheshape.dto.ProductImageDto;
+import com.sheshape.dto.ProductSummaryDto;
+import com.sheshape.dto.SearchPage;
 import com.sheshape.exception.BadRequestException;
+import com.sheshape.exception.PreconditionFailedException;
 import com.sheshape.exception.ResourceNotFoundException;
 import com.sheshape.model.Product;
 import com.sheshape.model.ProductImage;
 import com.sheshape.repository.ProductImageRepository;
 import com.sheshape.repository.ProductRepository;
+import com.sheshape.retry.RetryOnConflict;
+import com.sheshape.search.ProductSearch;
+import com.sheshape.search.SearchResult;
 import com.sheshape.service.ProductService;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,48 +42,108 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final ProductImageRepository productImageRepository;
-
-    public ProductServiceImpl(ProductRepository productRepository,ProductImageRepository productImageRepository) {
+    private final ProductCatalogCache catalogCache;
+    private final InStockIndex inStockIndex;
+    private final InventoryLedger inventoryLedger;
+    private final ProductSearch productSearch;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductServiceImpl(ProductRepository productRepository,ProductImageRepository productImageRepository,
+                              ProductCatalogCache catalogCache, InStockIndex inStockIndex,
+                              InventoryLedger inventoryLedger, ProductSearch productSearch,
+                              PlatformTransactionManager transactionManager) {
         this.productRepository = productRepository;
         this.productImageRepository = productImageRepository;
+        this.catalogCache = catalogCache;
+        this.inStockIndex = inStockIndex;
+        this.inventoryLedger = inventoryLedger;
+        this.productSearch = productSearch;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public Page<ProductDto> getAllActiveProducts(Pageable pageable) {
-        return productRepository.findByIsActiveTrue(pageable)
-                .map(ProductDto::new);
+        return catalogCache.getPage(ProductCatalogCache.Listing.ACTIVE, null, pageable,
+                () -> toDtos(productRepository.findByIsActiveTrue(pageable)),
+                this::loadProducts);
     }
 
     @Override
     public Page<ProductDto> getAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable)
-                .map(ProductDto::new);
+        return toDtos(productRepository.findAll(pageable));
     }
 
     @Override
     public ProductDto getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-        
-        return new ProductDto(product);
+        return catalogCache.getProduct(id, productId -> {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+
+            return new ProductDto(product);
+        });
     }
 
     @Override
     public Page<ProductDto> getProductsByCategory(String category, Pageable pageable) {
-        return productRepository.findByCategoryAndIsActiveTrue(category, pageable)
-                .map(ProductDto::new);
+        return catalogCache.getPage(ProductCatalogCache.Listing.CATEGORY, category, pageable,
+                () -> toDtos(productRepository.findByCategoryAndIsActiveTrue(category, pageable)),
+                this::loadProducts);
+    }
+
+    @Override
+    public Page<ProductSummaryDto> getActiveProductSummaries(String category, Pageable pageable) {
+        Page<ProductDto> products = category == null
+                ? getAllActiveProducts(pageable)
+                : getProductsByCategory(category, pageable);
+        return products.map(ProductSummaryDto::new);
     }
 
     @Override
-    public Page<ProductDto> searchProducts(String keyword, Pageable pageable) {
-        return productRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(keyword, pageable)
-                .map(ProductDto::new);
+    public SearchPage<ProductDto> searchProducts(String keyword, String category, Pageable pageable) {
+        SearchResult result = productSearch.search(keyword, category, (int) pageable.getOffset(), pageable.getPageSize());
+        return new SearchPage<>(catalogCache.getProducts(result.ids(), this::loadProducts),
+                pageable.getPageNumber(), pageable.getPageSize(), result.total(), result.facets());
     }
 
     @Override
-    public List<ProductDto> getProductsInStock() {
-        return productRepository.findByIsActiveTrueAndInventoryCountGreaterThan(0).stream()
-                .map(ProductDto::new)
+    public CursorPage<ProductDto> getProductsInStock(String category, String cursor, int size) {
+        CursorPage.checkSize(size);
+        List<KeysetCursor> keys = inStockIndex.page(category, KeysetCursor.decode(cursor), size + 1);
+        boolean hasMore = keys.size() > size;
+        List<KeysetCursor> page = hasMore ? keys.subList(0, size) : keys;
+
+        List<ProductDto> products = catalogCache.getProducts(page.stream().map(KeysetCursor::id).toList(),
+                this::loadProducts);
+        return new CursorPage<>(products, hasMore ? page.get(page.size() - 1).encode() : null, size);
+    }
+
+    // Refills products that were evicted from the cache while their listing page wasn't
+    private List<ProductDto> loadProducts(Collection<Long> ids) {
+        return toDtos(productRepository.findAllById(ids));
+    }
+
+    private Page<ProductDto> toDtos(Page<Product> page) {
+        return new PageImpl<>(toDtos(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    // Two queries for the whole page, instead of lazy-loading images and categories per product
+    private List<ProductDto> toDtos(List<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = products.stream().map(Product::getId).toList();
+
+        Map<Long, List<ProductImage>> images = productImageRepository.findByProductIdIn(ids).stream()
+                .collect(Collectors.groupingBy(image -> image.getProduct().getId()));
+        Map<Long, Set<String>> categories = new HashMap<>();
+        for (Object[] row : productRepository.findCategoriesByProductIdIn(ids)) {
+            categories.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+
+        return products.stream()
+                .map(product -> new ProductDto(product,
+                        images.getOrDefault(product.getId(), List.of()),
+                        categories.getOrDefault(product.getId(), Set.of())))
                 .collect(Collectors.toList());
     }
 
@@ -92,12 +171,7 @@ public class ProductServiceImpl implements ProductService {
         if (productDto.getImages() != null && !productDto.getImages().isEmpty()) {
             List<ProductImage> productImages = new ArrayList<>();
 
-            // Flag to ensure at least one image is main
-            boolean hasMainImage = productDto.getImages().stream()
-                    .anyMatch(ProductImageDto::isMain);
-
-            // If no image is marked as main, make the first one main
-            boolean makeFirstMain = !hasMainImage && !productDto.getImages().isEmpty();
+            int mainIndex = mainImageIndex(productDto.getImages());
 
             for (int i = 0; i < productDto.getImages().size(); i++) {
                 ProductImageDto imageDto = productDto.getImages().get(i);
@@ -106,7 +180,7 @@ public class ProductServiceImpl implements ProductService {
                 image.setProduct(savedProduct);
                 image.setImageUrl(imageDto.getImageUrl());
                 image.setFileKey(imageDto.getFileKey());
-                image.setMain(imageDto.isMain() || (makeFirstMain && i == 0));
+                image.setMain(i == mainIndex);
                 image.setPosition(imageDto.getPosition() != null ? imageDto.getPosition() : i);
 
                 productImages.add(image);
@@ -116,14 +190,19 @@ public class ProductServiceImpl implements ProductService {
             savedProduct = productRepository.save(savedProduct);
         }
 
+        catalogCache.listingsChanged(savedProduct.getId());
+        inStockIndex.productChanged(savedProduct.getId());
+        productSearch.productChanged(savedProduct);
         return convertToDto(savedProduct);
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public ProductDto updateProduct(Long id, ProductDto productDto) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        PreconditionFailedException.checkVersion("Product", productDto.getVersion(), product.getVersion());
 
         // Update basic fields
         if (productDto.getName() != null) {
@@ -157,15 +236,17 @@ public class ProductServiceImpl implements ProductService {
 
         // Handle image updates if provided
         if (productDto.getImages() != null) {
+            // Unflag the old main first: Hibernate inserts new images before it updates
+            // old ones, and Postgres allows only one main image per product
+            if (product.getImages().stream().anyMatch(ProductImage::isMain)) {
+                product.getImages().forEach(image -> image.setMain(false));
+                productImageRepository.flush();
+            }
+
             // First clear existing images if we're setting new ones
             product.getImages().clear();
 
-            // Flag to ensure at least one image is main
-            boolean hasMainImage = productDto.getImages().stream()
-                    .anyMatch(ProductImageDto::isMain);
-
-            // If no image is marked as main, make the first one main
-            boolean makeFirstMain = !hasMainImage && !productDto.getImages().isEmpty();
+            int mainIndex = mainImageIndex(productDto.getImages());
 
             for (int i = 0; i < productDto.getImages().size(); i++) {
                 ProductImageDto imageDto = productDto.getImages().get(i);
@@ -180,37 +261,48 @@ public class ProductServiceImpl implements ProductService {
                 image.setProduct(product);
                 image.setImageUrl(imageDto.getImageUrl());
                 image.setFileKey(imageDto.getFileKey());
-                image.setMain(imageDto.isMain() || (makeFirstMain && i == 0));
+                image.setMain(i == mainIndex);
                 image.setPosition(imageDto.getPosition() != null ? imageDto.getPosition() : i);
 
                 product.getImages().add(image);
             }
         }
 
-        Product updatedProduct = productRepository.save(product);
+        Product updatedProduct = productRepository.saveAndFlush(product);
+        catalogCache.listingsChanged(id);
+        inStockIndex.productChanged(id);
+        productSearch.productChanged(updatedProduct);
         return convertToDto(updatedProduct);
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public ProductDto activateProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         
         product.setIsActive(true);
-        Product activatedProduct = productRepository.save(product);
+        Product activatedProduct = productRepository.saveAndFlush(product);
+        catalogCache.listingsChanged(id);
+        inStockIndex.productChanged(id);
+        productSearch.productChanged(activatedProduct);
         
         return new ProductDto(activatedProduct);
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public ProductDto deactivateProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         
         product.setIsActive(false);
-        Product deactivatedProduct = productRepository.save(product);
+        Product deactivatedProduct = productRepository.saveAndFlush(product);
+        catalogCache.listingsChanged(id);
+        inStockIndex.productChanged(id);
+        productSearch.productChanged(deactivatedProduct);
         
         return new ProductDto(deactivatedProduct);
     }
@@ -222,23 +314,107 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         
         productRepository.delete(product);
+        catalogCache.listingsChanged(id);
+        inStockIndex.productChanged(id);
+        productSearch.productRemoved(id);
     }
 
+    // Not @Transactional: a flash-sale product is reserved from memory, and a top-up opens a
+    // transaction of its own. Holding a connection while waiting on the ledger would let
+    // blocked checkouts drain the pool, so only the database path opens a transaction.
     @Override
-    @Transactional
     public boolean updateInventory(Long id, int quantity) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-        
-        if (product.getInventoryCount() < quantity) {
+        if (quantity > 0 && inventoryLedger.isTracked(id)) {
+            if (!inventoryLedger.tryReserve(id, quantity)) {
+                return false;
+            }
+            inventoryLedger.releaseOnRollback(id, quantity);
+            return true;
+        }
+
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> decrementInventory(id, quantity)));
+    }
+
+    @Override
+    public void reserveInventory(Map<Long, Integer> quantities) {
+        // Ascending id order: carts that share products lock them in the same order and can't deadlock
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+        ordered.forEach((id, quantity) -> {
+            if (quantity == null || quantity <= 0) {
+                throw new BadRequestException("Quantity must be positive for product with id: " + id);
+            }
+        });
+
+        // Held stock first, before the transaction for the rest opens (see updateInventory)
+        Map<Long, Integer> fromLedger = new LinkedHashMap<>();
+        Map<Long, Integer> fromDatabase = new TreeMap<>();
+        try {
+            for (Map.Entry<Long, Integer> item : ordered.entrySet()) {
+                Long id = item.getKey();
+                int quantity = item.getValue();
+                if (!inventoryLedger.isTracked(id)) {
+                    fromDatabase.put(id, quantity);
+                } else if (inventoryLedger.tryReserve(id, quantity)) {
+                    fromLedger.put(id, quantity);
+                } else {
+                    throw new BadRequestException("Insufficient inventory for product with id: " + id);
+                }
+            }
+
+            if (!fromDatabase.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> fromDatabase.forEach((id, quantity) -> {
+                    if (!decrementInventory(id, quantity)) {
+                        throw new BadRequestException("Insufficient inventory for product with id: " + id);
+                    }
+                }));
+            }
+        } catch (RuntimeException e) {
+            // Database decrements roll back with the transaction; held units have to be handed back
+            fromLedger.forEach(inventoryLedger::release);
+            throw e;
+        }
+        // Registered only once the whole cart is reserved, so a failure above isn't released twice
+        fromLedger.forEach(inventoryLedger::releaseOnRollback);
+    }
+
+    private boolean decrementInventory(Long id, int quantity) {
+        // Check and decrement in one statement, so concurrent checkouts can't both pass the check
+        if (productRepository.decrementInventory(id, quantity, LocalDateTime.now()) == 0) {
+            if (!productRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Product not found with id: " + id);
+            }
             return false; // Not enough inventory
         }
-        
-        product.setInventoryCount(product.getInventoryCount() - quantity);
-        productRepository.save(product);
-        
+
+        catalogCache.inventoryChanged(id);
+        // The index re-reads the row after commit, rather than trust counts read around the update
+        inStockIndex.productChanged(id);
         return true;
     }
+
+    @Override
+    public void startFlashSale(Long id) {
+        if (!productRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Product not found with id: " + id);
+        }
+        inventoryLedger.track(id);
+    }
+
+    @Override
+    public void endFlashSale(Long id) {
+        inventoryLedger.untrack(id);
+    }
+
+    // The first image flagged main, or the first image when none is
+    private static int mainImageIndex(List<ProductImageDto> images) {
+        for (int i = 0; i < images.size(); i++) {
+            if (images.get(i).isMain()) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
     private ProductDto convertToDto(Product product) {
         ProductDto dto = new ProductDto();
         dto.setId(product.getId());
@@ -250,6 +426,7 @@ public class ProductServiceImpl implements ProductService {
         dto.setIsActive(product.getIsActive());
         dto.setCreatedAt(product.getCreatedAt());
         dto.setUpdatedAt(product.getUpdatedAt());
+        dto.setVersion(product.getVersion());
 
         // Convert categories
         dto.setCategories(product.getCategories());
@@ -0,0 +1,332 @@
+package com.sheshape.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sheshape.dto.ImportReport;
+import com.sheshape.dto.ProductTransferRow;
+import com.sheshape.model.Product;
+import com.sheshape.model.ProductImage;
+import com.sheshape.repository.ProductImageRepository;
+import com.sheshape.repository.ProductRepository;
+import com.sheshape.search.ProductSearch;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.ProductTransferService;
+import com.sheshape.service.impl.ProductRowReader.Row;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@Service
+public class ProductTransferServiceImpl implements ProductTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductTransferServiceImpl.class);
+
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    // Main image first, so a re-import keeps it main
+    private static final String EXPORT_QUERY = "SELECT p.id, p.name, p.description, p.price, p.discount_price, "
+            + "p.inventory_count, p.is_active, "
+            + "(SELECT string_agg(c.category, '|' ORDER BY c.category) FROM product_categories c "
+            + "WHERE c.product_id = p.id) AS categories, "
+            + "(SELECT string_agg(i.file_key, '|' ORDER BY i.is_main DESC, i.position) FROM product_images i "
+            + "WHERE i.product_id = p.id) AS image_keys "
+            + "FROM products p ORDER BY p.id";
+
+    private record Outcome(Row row, boolean created, String error) {
+    }
+
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final FileStorageService fileStorageService;
+    private final ProductCatalogCache catalogCache;
+    private final InStockIndex inStockIndex;
+    private final InventoryLedger inventoryLedger;
+    private final ProductSearch productSearch;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate chunkTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public ProductTransferServiceImpl(
+            ProductRepository productRepository,
+            ProductImageRepository productImageRepository,
+            FileStorageService fileStorageService,
+            ProductCatalogCache catalogCache,
+            InStockIndex inStockIndex,
+            InventoryLedger inventoryLedger,
+            ProductSearch productSearch,
+            EntityManager entityManager,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            Validator validator,
+            PlatformTransactionManager transactionManager,
+            @Value("${products.import.chunk-size:500}") int chunkSize,
+            @Value("${products.import.max-reported-errors:100}") int maxReportedErrors) {
+        this.productRepository = productRepository;
+        this.productImageRepository = productImageRepository;
+        this.fileStorageService = fileStorageService;
+        this.catalogCache = catalogCache;
+        this.inStockIndex = inStockIndex;
+        this.inventoryLedger = inventoryLedger;
+        this.productSearch = productSearch;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        // Each chunk commits on its own, so a failure late in the file keeps the earlier chunks
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Postgres only streams a result set through a cursor outside autocommit
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public ImportReport importProducts(Format format, InputStream input) {
+        long started = System.nanoTime();
+        ImportReport report = new ImportReport();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+
+        try (ProductRowReader reader = ProductRowReader.open(format, input, objectMapper)) {
+            Row row;
+            while ((row = reader.next()) != null) {
+                report.setReceived(report.getReceived() + 1);
+                String error = row.error() != null ? row.error() : validate(row.product());
+                if (error != null) {
+                    report.addError(row.number(), error, maxReportedErrors);
+                    continue;
+                }
+
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            report.addError(report.getReceived() + 1, "Unreadable input: " + e.getMessage(), maxReportedErrors);
+            report.setAborted(true);
+        }
+        // The last, partial chunk; also the good rows read before an unreadable one
+        importChunk(chunk, report);
+
+        logger.info("Imported {} products ({} created, {} updated, {} failed) in {} ms", report.getReceived(),
+                report.getCreated(), report.getUpdated(), report.getFailed(), (System.nanoTime() - started) / 1_000_000);
+        return report;
+    }
+
+    @Override
+    public void exportProducts(Format format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(String.join(",", ProductRowReader.CSV_COLUMNS));
+            writer.write('\n');
+        }
+
+        RowCallbackHandler writeRow = resultSet -> {
+            try {
+                ProductTransferRow product = toTransferRow(resultSet);
+                writer.write(format == Format.CSV ? csvRow(product) : objectMapper.writeValueAsString(product));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_QUERY);
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                return statement;
+            }, writeRow));
+        } catch (UncheckedIOException e) {
+            // Usually the client went away
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private String validate(ProductTransferRow product) {
+        if (product.getId() != null && product.getId() <= 0) {
+            return "Invalid id: " + product.getId();
+        }
+        return validator.validate(product).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .reduce((first, second) -> first + "; " + second)
+                .orElse(null);
+    }
+
+    private void importChunk(List<Row> chunk, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<Outcome> outcomes;
+        try {
+            outcomes = chunkTransaction.execute(status -> upsert(chunk));
+        } catch (RuntimeException e) {
+            // One bad row rolls back its chunk: redo the chunk a row at a time to find it
+            outcomes = new ArrayList<>(chunk.size());
+            for (Row row : chunk) {
+                try {
+                    outcomes.addAll(chunkTransaction.execute(status -> upsert(List.of(row))));
+                } catch (RuntimeException rowFailure) {
+                    outcomes.add(new Outcome(row, false,
+                            NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage()));
+                }
+            }
+        }
+
+        for (Outcome outcome : outcomes) {
+            if (outcome.error() != null) {
+                report.addError(outcome.row().number(), outcome.error(), maxReportedErrors);
+            } else if (outcome.created()) {
+                report.setCreated(report.getCreated() + 1);
+            } else {
+                report.setUpdated(report.getUpdated() + 1);
+            }
+        }
+    }
+
+    private List<Outcome> upsert(List<Row> rows) {
+        // The ledger holds part of a flash-sale product's stock outside the row and adds it back
+        // later, so an absolute count would grow the stock; those rows are refused untouched
+        Set<Long> inFlashSale = new HashSet<>();
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            Long id = row.product().getId();
+            if (id != null && inventoryLedger.isTracked(id)) {
+                inFlashSale.add(id);
+            } else if (id != null) {
+                ids.add(id);
+            }
+        }
+        Map<Long, Product> existing = new HashMap<>();
+        if (!ids.isEmpty()) {
+            // Replaced images go in one statement, before any insert could
+            // collide with an old main image on Postgres' one-main index
+            productImageRepository.deleteByProductIdIn(ids);
+            productRepository.findAllById(ids).forEach(product -> existing.put(product.getId(), product));
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            ProductTransferRow source = row.product();
+            if (inFlashSale.contains(source.getId())) {
+                outcomes.add(new Outcome(row, false,
+                        "Product " + source.getId() + " is in a flash sale; end the sale before importing it"));
+                continue;
+            }
+            Product product = source.getId() == null ? new Product() : existing.get(source.getId());
+            if (product == null) {
+                outcomes.add(new Outcome(row, false, "Product not found with id: " + source.getId()));
+                continue;
+            }
+
+            product.setName(source.getName());
+            product.setDescription(source.getDescription());
+            product.setPrice(source.getPrice());
+            product.setDiscountPrice(source.getDiscountPrice());
+            product.setInventoryCount(source.getInventoryCount());
+            product.setIsActive(source.getIsActive() != null ? source.getIsActive() : true);
+            product.setCategories(new HashSet<>(source.getCategories()));
+            Product saved = productRepository.save(product);
+
+            // Saved directly rather than through the collection, so an update never loads the old images
+            List<ProductImage> images = new ArrayList<>(source.getImageKeys().size());
+            for (int i = 0; i < source.getImageKeys().size(); i++) {
+                String key = source.getImageKeys().get(i);
+                ProductImage image = new ProductImage();
+                image.setProduct(saved);
+                image.setFileKey(key);
+                image.setImageUrl(fileStorageService.getFileUrl(key));
+                image.setMain(i == 0);
+                image.setPosition(i);
+                images.add(image);
+            }
+            productImageRepository.saveAll(images);
+
+            catalogCache.listingsChanged(saved.getId());
+            inStockIndex.productChanged(saved.getId());
+            productSearch.productChanged(saved);
+            outcomes.add(new Outcome(row, source.getId() == null, null));
+        }
+
+        // Batched inserts and updates go out here; clearing keeps the persistence context
+        // (shared with the whole request under open-in-view) to one chunk
+        entityManager.flush();
+        entityManager.clear();
+        return outcomes;
+    }
+
+    private static ProductTransferRow toTransferRow(ResultSet resultSet) throws SQLException {
+        ProductTransferRow product = new ProductTransferRow();
+        product.setId(resultSet.getLong("id"));
+        product.setName(resultSet.getString("name"));
+        product.setDescription(resultSet.getString("description"));
+        product.setPrice(resultSet.getBigDecimal("price"));
+        product.setDiscountPrice(resultSet.getBigDecimal("discount_price"));
+        product.setInventoryCount(resultSet.getInt("inventory_count"));
+        product.setIsActive(resultSet.getBoolean("is_active"));
+        product.setCategories(ProductRowReader.splitList(resultSet.getString("categories")));
+        product.setImageKeys(ProductRowReader.splitList(resultSet.getString("image_keys")));
+        return product;
+    }
+
+    private static String csvRow(ProductTransferRow product) {
+        return String.join(",",
+                Objects.toString(product.getId(), ""),
+                csvField(product.getName()),
+                csvField(product.getDescription()),
+                product.getPrice() == null ? "" : product.getPrice().toPlainString(),
+                product.getDiscountPrice() == null ? "" : product.getDiscountPrice().toPlainString(),
+                Objects.toString(product.getInventoryCount(), ""),
+                Objects.toString(product.getIsActive(), ""),
+                csvField(String.join(ProductRowReader.LIST_SEPARATOR, product.getCategories())),
+                csvField(String.join(ProductRowReader.LIST_SEPARATOR, product.getImageKeys())));
+    }
+
+    // Quoted only when it holds a separator, a quote or a line break
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = value.chars().anyMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r');
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
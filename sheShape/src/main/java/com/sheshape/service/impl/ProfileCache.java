@@ -0,0 +1,59 @@
+package com.sheshape.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sheshape.dto.profile.ProfileResponseDTO;
+import com.sheshape.security.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Per-user cache of the composed profile, which the app reads on every open.
+ * Writers evict their user's entry once they commit; hit/miss counts are
+ * published as the {@code cache.*} metrics tagged {@code cache=profiles}.
+ */
+@Component
+public class ProfileCache {
+
+    static final String PROFILES_CACHE = "profiles";
+
+    private final Cache<Long, ProfileResponseDTO> profiles;
+
+    // Bumped on every committed write; a load that overlaps one is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProfileCache(
+            MeterRegistry meterRegistry,
+            @Value("${profiles.cache.max-size:10000}") long maxSize,
+            @Value("${profiles.cache.ttl:PT10M}") Duration ttl) {
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, PROFILES_CACHE);
+    }
+
+    public ProfileResponseDTO get(Long userId, Function<Long, ProfileResponseDTO> loader) {
+        long observed = generation.get();
+        ProfileResponseDTO profile = profiles.get(userId, loader);
+        if (generation.get() != observed) {
+            profiles.invalidate(userId);
+        }
+        return profile;
+    }
+
+    /** The user's profile changed; the entry goes when the write commits. */
+    public void profileChanged(Long userId) {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            profiles.invalidate(userId);
+        });
+    }
+}
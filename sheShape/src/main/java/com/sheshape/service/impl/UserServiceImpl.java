@@ -4,6 +4,8 @@ import com.sheshape.dto.UserDto;
 import com.sheshape.exception.ResourceNotFoundException;
 import com.sheshape.model.User;
 import com.sheshape.repository.UserRepository;
+import com.sheshape.security.AccountVersionRegistry;
+import com.sheshape.security.PrincipalCache;
 import com.sheshape.service.UserService;
 import jakarta.transaction.Transactional;
 import org.springframework.security.core.Authentication;
@@ -18,9 +20,14 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final AccountVersionRegistry accountVersions;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, PrincipalCache principalCache,
+                           AccountVersionRegistry accountVersions) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.accountVersions = accountVersions;
     }
 
     @Override
@@ -73,6 +80,9 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         
+        // Cached principals are keyed by the email the tokens were issued for
+        principalCache.evict(user.getEmail());
+        
         // Update fields
         if (userDto.getUsername() != null) {
             user.setUsername(userDto.getUsername());
@@ -86,8 +96,12 @@ public class UserServiceImpl implements UserService {
             user.setIsActive(userDto.getIsActive());
         }
         
+        // Revoke stateless tokens issued before this change
+        user.incrementAccountVersion();
+        
         // Save updated user
         User updatedUser = userRepository.save(user);
+        accountVersions.update(updatedUser);
         
         return new UserDto(updatedUser);
     }
@@ -99,6 +113,8 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         
         userRepository.delete(user);
+        principalCache.evict(user.getEmail());
+        accountVersions.remove(user.getId());
     }
 
     @Override
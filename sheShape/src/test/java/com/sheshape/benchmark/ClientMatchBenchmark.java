@@ -0,0 +1,108 @@
+package com.sheshape.benchmark;
+
+import com.sheshape.model.GymProgram;
+import com.sheshape.model.profile.FitnessProfile;
+import com.sheshape.service.impl.ClientMatchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one top-K {@link ClientMatchIndex} query over 1M synthetic
+ * fitness profiles, for a program that sets every criterion, with a few
+ * thousand already-enrolled clients excluded. Runs in memory, no database
+ * needed. Run {@link #main} from the IDE or after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ClientMatchBenchmark {
+
+    private static final int PROFILES = 1_000_000;
+    private static final int ENROLLED = 5_000;
+
+    @Param({"20", "100"})
+    private int limit;
+
+    private ClientMatchIndex index;
+    private ClientMatchIndex.Target target;
+    private Set<Long> enrolled;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        FitnessProfile.FitnessLevel[] levels = FitnessProfile.FitnessLevel.values();
+        FitnessProfile.FitnessGoal[] goals = FitnessProfile.FitnessGoal.values();
+        DayOfWeek[] days = DayOfWeek.values();
+
+        index = new ClientMatchIndex(null, null);
+        for (long userId = 1; userId <= PROFILES; userId++) {
+            FitnessProfile profile = new FitnessProfile();
+            profile.setUserId(userId);
+            profile.setFitnessLevel(levels[random.nextInt(levels.length)]);
+            profile.setPrimaryGoal(goals[random.nextInt(goals.length)]);
+            profile.setSecondaryGoals(List.of(goals[random.nextInt(goals.length)].name()));
+            profile.setWorkoutFrequency(1 + random.nextInt(6));
+            profile.setWorkoutDuration(15 + 15 * random.nextInt(6));
+            List<String> preferred = new ArrayList<>();
+            for (DayOfWeek day : days) {
+                if (random.nextInt(3) == 0) {
+                    preferred.add(FitnessProfile.dayName(day));
+                }
+            }
+            profile.setPreferredWorkoutDays(preferred);
+            index.index(profile);
+        }
+
+        GymProgram program = new GymProgram();
+        program.setDifficultyLevel(GymProgram.DifficultyLevel.INTERMEDIATE);
+        program.setTargetGoals(List.of("MUSCLE_GAIN", "STRENGTH_BUILDING"));
+        program.setSessionsPerWeek(3);
+        program.setScheduleDays(List.of("Monday", "Wednesday", "Friday"));
+        target = ClientMatchIndex.Target.of(program, 45.0);
+
+        enrolled = new HashSet<>();
+        while (enrolled.size() < ENROLLED) {
+            enrolled.add(1L + random.nextInt(PROFILES));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.shutdown();
+    }
+
+    @Benchmark
+    public List<ClientMatchIndex.Match> top() {
+        return index.top(target, limit, enrolled);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ClientMatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,159 @@
+package com.sheshape.benchmark;
+
+import com.sheshape.recommendation.CoPurchaseRecommender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall time of a {@link CoPurchaseRecommender} run over 3M synthetic purchases
+ * (2M program enrollments, 1M plan enrollments, 500k users): {@code fullBuild}
+ * counts everything, as at startup; {@code dailyUpdate} counts a day's 30k new
+ * purchases into an index that already holds the rest, as the nightly run
+ * does. Needs a Postgres: pass {@code -Dbenchmark.db.url}, {@code .user} and
+ * {@code .password}. The tables are seeded once into the
+ * {@code recommendation_benchmark} schema and reused.
+ * Run {@link #main} from the IDE or after {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CoPurchaseBuildBenchmark {
+
+    private static final int USERS = 500_000;
+    private static final int PROGRAM_PURCHASES = 2_000_000;
+    private static final int PLAN_PURCHASES = 1_000_000;
+    private static final int DAILY_PURCHASES = 30_000;
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        JdbcTemplate jdbcTemplate;
+        DataSourceTransactionManager transactionManager;
+
+        @Setup
+        public void setUp() {
+            Properties properties = new Properties();
+            properties.setProperty("currentSchema", "recommendation_benchmark");
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                    System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/sheshape"),
+                    System.getProperty("benchmark.db.user", "postgres"),
+                    System.getProperty("benchmark.db.password", "postgres"));
+            dataSource.setConnectionProperties(properties);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            transactionManager = new DataSourceTransactionManager(dataSource);
+
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS recommendation_benchmark");
+            if (!seeded()) {
+                seed();
+            }
+        }
+
+        CoPurchaseRecommender recommender() {
+            return new CoPurchaseRecommender(jdbcTemplate, transactionManager, 20, 2, Duration.ZERO);
+        }
+
+        private boolean seeded() {
+            Long tables = jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.tables "
+                    + "WHERE table_schema = 'recommendation_benchmark' AND table_name = 'user_nutrition_plans'", Long.class);
+            return tables != null && tables > 0 && Long.valueOf(PLAN_PURCHASES)
+                    .equals(jdbcTemplate.queryForObject("SELECT count(*) FROM user_nutrition_plans", Long.class));
+        }
+
+        // Only the columns the recommender reads, with the entities' indexes. Users lean towards
+        // a "cluster" of programs and plans so that neighbours are not uniform noise.
+        private void seed() {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS user_gym_programs, user_nutrition_plans, "
+                    + "gym_programs, nutrition_plans");
+            jdbcTemplate.execute("CREATE TABLE gym_programs (id bigint PRIMARY KEY, is_active boolean NOT NULL)");
+            jdbcTemplate.execute("CREATE TABLE nutrition_plans (id bigint PRIMARY KEY, is_active boolean NOT NULL)");
+            jdbcTemplate.execute("CREATE TABLE user_gym_programs (id bigserial PRIMARY KEY, user_id bigint NOT NULL, "
+                    + "program_id bigint NOT NULL, created_at timestamp)");
+            jdbcTemplate.execute("CREATE TABLE user_nutrition_plans (id bigserial PRIMARY KEY, user_id bigint NOT NULL, "
+                    + "plan_id bigint NOT NULL, created_at timestamp)");
+
+            jdbcTemplate.execute("INSERT INTO gym_programs SELECT g, g % 20 <> 0 FROM generate_series(1, 500) g");
+            jdbcTemplate.execute("INSERT INTO nutrition_plans SELECT g, true FROM generate_series(1, 200) g");
+            jdbcTemplate.execute("INSERT INTO user_gym_programs (user_id, program_id, created_at) "
+                    + "SELECT u, CASE WHEN random() < 0.7 THEN (u % 50) * 10 + 1 + (random() * 9)::int "
+                    + "ELSE 1 + (random() * 499)::int END, now() - interval '2 days' - random() * interval '3 years' "
+                    + "FROM (SELECT 1 + (random() * " + (USERS - 1) + ")::bigint AS u "
+                    + "FROM generate_series(1, " + PROGRAM_PURCHASES + ")) users");
+            jdbcTemplate.execute("INSERT INTO user_nutrition_plans (user_id, plan_id, created_at) "
+                    + "SELECT u, CASE WHEN random() < 0.7 THEN (u % 50) * 4 + 1 + (random() * 3)::int "
+                    + "ELSE 1 + (random() * 199)::int END, now() - interval '2 days' - random() * interval '3 years' "
+                    + "FROM (SELECT 1 + (random() * " + (USERS - 1) + ")::bigint AS u "
+                    + "FROM generate_series(1, " + PLAN_PURCHASES + ")) users");
+            for (String table : new String[] {"user_gym_programs", "user_nutrition_plans"}) {
+                jdbcTemplate.execute("CREATE INDEX ON " + table + " (user_id)");
+                jdbcTemplate.execute("CREATE INDEX ON " + table + " (created_at)");
+                jdbcTemplate.execute("ANALYZE " + table);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Built {
+
+        CoPurchaseRecommender recommender;
+
+        // Counts the history, then lands a day's purchases after it
+        @Setup(Level.Invocation)
+        public void setUp(Database database) {
+            recommender = database.recommender();
+            recommender.update();
+            LocalDateTime now = LocalDateTime.now();
+            database.jdbcTemplate.update("INSERT INTO user_gym_programs (user_id, program_id, created_at) "
+                    + "SELECT 1 + (random() * " + (USERS - 1) + ")::bigint, 1 + (random() * 499)::int, ? "
+                    + "FROM generate_series(1, " + DAILY_PURCHASES + ")", now);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown(Database database) {
+            recommender.shutdown();
+            database.jdbcTemplate.update("DELETE FROM user_gym_programs WHERE created_at > now() - interval '1 day'");
+        }
+    }
+
+    @Benchmark
+    public CoPurchaseRecommender fullBuild(Database database) {
+        CoPurchaseRecommender recommender = database.recommender();
+        recommender.update();
+        recommender.shutdown();
+        return recommender;
+    }
+
+    @Benchmark
+    public CoPurchaseRecommender dailyUpdate(Built built) {
+        built.recommender.update();
+        return built.recommender;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CoPurchaseBuildBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.sheshape.benchmark;
+
+import com.sheshape.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request JWT work of the original filter (key and parser rebuilt
+ * for every claim lookup, four parses per request) with the parse-once path.
+ * Run {@link #main} from the IDE or after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-hs256";
+
+    private JwtUtil jwtUtil;
+    private JwtParser sharedParser;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 86_400_000L, false, 10_000, Duration.ofMinutes(5));
+        // What JwtUtil does on a verified-token cache miss
+        sharedParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build();
+        userDetails = new User("client@sheshape.com", "", List.of());
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public boolean legacyFourParses() {
+        String username = legacyClaims(token).getSubject();
+        return username.equals(userDetails.getUsername())
+                && legacyClaims(token).getSubject().equals(userDetails.getUsername())
+                && !legacyClaims(token).getExpiration().before(new Date())
+                && legacyClaims(token).getIssuedAt() != null;
+    }
+
+    @Benchmark
+    public Claims singleParse() {
+        return sharedParser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims singleParseCached() {
+        return jwtUtil.validateAndGetClaims(token);
+    }
+
+    // Mirrors the original JwtUtil.extractAllClaims
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
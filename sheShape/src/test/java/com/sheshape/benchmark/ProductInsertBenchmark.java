@@ -0,0 +1,161 @@
+package com.sheshape.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to insert 10k products in one transaction, replaying the statements
+ * Hibernate issues for each id strategy: {@code identity} executes every INSERT
+ * on its own to read the generated key; {@code sequence} fetches ids 50 at a
+ * time from a pooled sequence and sends the INSERTs as JDBC batches of 50
+ * ({@code hibernate.jdbc.batch_size}); {@code sequence-rewrite} adds the
+ * driver's {@code reWriteBatchedInserts}. Needs a Postgres: pass
+ * {@code -Dbenchmark.db.url}, {@code .user} and {@code .password}. Tables live
+ * in the {@code insert_benchmark} schema and are emptied before each iteration.
+ * Run {@link #main} from the IDE or after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductInsertBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    // Both the entities' allocationSize and hibernate.jdbc.batch_size
+    private static final int BATCH_SIZE = 50;
+
+    private static final String INSERT_IDENTITY = "INSERT INTO products_identity "
+            + "(name, price, inventory_count, is_active) VALUES (?, ?, ?, true)";
+    private static final String INSERT_SEQUENCE = "INSERT INTO products_sequence "
+            + "(id, name, price, inventory_count, is_active) VALUES (?, ?, ?, ?, true)";
+
+    @Param({"identity", "sequence", "sequence-rewrite"})
+    private String ids;
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", System.getProperty("benchmark.db.user", "postgres"));
+        properties.setProperty("password", System.getProperty("benchmark.db.password", "postgres"));
+        properties.setProperty("reWriteBatchedInserts", String.valueOf(ids.equals("sequence-rewrite")));
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/sheshape"), properties);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS insert_benchmark");
+            statement.execute("SET search_path TO insert_benchmark");
+            statement.execute("CREATE TABLE IF NOT EXISTS products_identity ("
+                    + "id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, name varchar(255) NOT NULL, "
+                    + "price numeric(10, 2) NOT NULL, inventory_count integer NOT NULL, is_active boolean NOT NULL)");
+            statement.execute("CREATE TABLE IF NOT EXISTS products_sequence ("
+                    + "id bigint PRIMARY KEY, name varchar(255) NOT NULL, "
+                    + "price numeric(10, 2) NOT NULL, inventory_count integer NOT NULL, is_active boolean NOT NULL)");
+            statement.execute("CREATE SEQUENCE IF NOT EXISTS products_sequence_seq INCREMENT BY " + BATCH_SIZE);
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTables() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE products_identity, products_sequence");
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long insert() throws SQLException {
+        long lastId = ids.equals("identity") ? insertWithIdentity() : insertWithPooledSequence();
+        connection.commit();
+        return lastId;
+    }
+
+    // One round-trip per product: the key has to be read back before the next persist
+    private long insertWithIdentity() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_IDENTITY, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < PRODUCTS; i++) {
+                insert.setString(1, "Product " + i);
+                insert.setBigDecimal(2, price(i));
+                insert.setInt(3, i % 100);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    lastId = keys.getLong(1);
+                }
+            }
+        }
+        return lastId;
+    }
+
+    // Pooled optimizer: each nextval is the top of a block of BATCH_SIZE ids
+    private long insertWithPooledSequence() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement nextBlock = connection.prepareStatement("SELECT nextval('products_sequence_seq')");
+             PreparedStatement insert = connection.prepareStatement(INSERT_SEQUENCE)) {
+            long blockEnd = 0;
+            for (int i = 0; i < PRODUCTS; i++) {
+                if (i % BATCH_SIZE == 0) {
+                    try (ResultSet value = nextBlock.executeQuery()) {
+                        value.next();
+                        blockEnd = value.getLong(1);
+                    }
+                }
+                lastId = blockEnd - BATCH_SIZE + 1 + i % BATCH_SIZE;
+                insert.setLong(1, lastId);
+                insert.setString(2, "Product " + i);
+                insert.setBigDecimal(3, price(i));
+                insert.setInt(4, i % 100);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        return lastId;
+    }
+
+    private static BigDecimal price(int i) {
+        return BigDecimal.valueOf(999 + i % 5000, 2);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
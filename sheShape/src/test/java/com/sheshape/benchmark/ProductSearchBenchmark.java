@@ -0,0 +1,162 @@
+package com.sheshape.benchmark;
+
+import com.sheshape.search.PostgresSearchSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one search page over a synthetic 1M-product catalog: the old
+ * {@code findByNameContainingIgnoreCaseAndIsActiveTrue} query (a sequential
+ * {@code lower(name) like} scan) against the {@code search.mode=postgres}
+ * full-text and trigram queries. Needs a Postgres with pg_trgm available:
+ * pass {@code -Dbenchmark.db.url}, {@code .user} and {@code .password}. The
+ * catalog is seeded once into the {@code search_benchmark} schema and reused.
+ * Run {@link #main} from the IDE or after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int PAGE_SIZE = 10;
+
+    // What the derived ContainingIgnoreCase query compiled to, plus its count query
+    private static final String CONTAINING = "SELECT p.id FROM products p WHERE lower(p.name) LIKE lower(?) "
+            + "AND p.is_active ORDER BY p.name LIMIT " + PAGE_SIZE;
+    private static final String CONTAINING_COUNT = "SELECT count(*) FROM products p "
+            + "WHERE lower(p.name) LIKE lower(?) AND p.is_active";
+
+    // Same SQL as ProductRepository.searchFullText / searchSimilar, without the category filter
+    private static final String FULL_TEXT = "SELECT p.id, count(*) OVER () FROM products p "
+            + "WHERE p.is_active AND p.search_vector @@ websearch_to_tsquery('english', ?) "
+            + "ORDER BY ts_rank(p.search_vector, websearch_to_tsquery('english', ?)) DESC, p.id LIMIT " + PAGE_SIZE;
+    private static final String SIMILAR = "SELECT p.id, count(*) OVER () FROM products p "
+            + "WHERE p.is_active AND p.name % ? ORDER BY similarity(p.name, ?) DESC, p.id LIMIT " + PAGE_SIZE;
+
+    @Param({"yoga mat", "kettlebell", "kettelbell"})
+    private String query;
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/sheshape"),
+                System.getProperty("benchmark.db.user", "postgres"),
+                System.getProperty("benchmark.db.password", "postgres"));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS search_benchmark");
+            statement.execute("SET search_path TO search_benchmark, public");
+            if (!seeded(statement)) {
+                seed(statement);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long containingIgnoreCase() throws SQLException {
+        String pattern = "%" + query + "%";
+        long ids = sum(CONTAINING, pattern);
+        return ids + sum(CONTAINING_COUNT, pattern);
+    }
+
+    @Benchmark
+    public long fullText() throws SQLException {
+        return sum(FULL_TEXT, query, query);
+    }
+
+    @Benchmark
+    public long trigram() throws SQLException {
+        return sum(SIMILAR, query, query);
+    }
+
+    private long sum(String sql, String... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setString(i + 1, parameters[i]);
+            }
+            long sum = 0;
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    sum += rows.getLong(1);
+                }
+            }
+            return sum;
+        }
+    }
+
+    private static boolean seeded(Statement statement) throws SQLException {
+        try (ResultSet rows = statement.executeQuery("SELECT count(*) FROM information_schema.tables "
+                + "WHERE table_schema = 'search_benchmark' AND table_name = 'products'")) {
+            rows.next();
+            if (rows.getLong(1) == 0) {
+                return false;
+            }
+        }
+        try (ResultSet rows = statement.executeQuery("SELECT count(*) FROM products")) {
+            rows.next();
+            return rows.getLong(1) == ROWS;
+        }
+    }
+
+    // Only the columns the search queries touch; names cycle through a small vocabulary
+    private static void seed(Statement statement) throws SQLException {
+        statement.execute("DROP TABLE IF EXISTS product_categories, products");
+        statement.execute("CREATE TABLE products (id bigint PRIMARY KEY, name varchar(255) NOT NULL, "
+                + "description text, is_active boolean NOT NULL)");
+        statement.execute("CREATE TABLE product_categories (product_id bigint NOT NULL, category varchar(255))");
+        statement.execute("INSERT INTO products "
+                + "SELECT g, "
+                + "(ARRAY['Pro','Eco','Flex','Ultra','Core','Lite','Studio'])[1 + g % 7] || ' ' || "
+                + "(ARRAY['yoga mat','resistance band','dumbbell','kettlebell','foam roller','jump rope',"
+                + "'protein powder','water bottle','running shoes','gym bag','yoga block'])[1 + (g / 7) % 11] || ' ' || g, "
+                + "'Synthetic product ' || g || ' for ' || "
+                + "(ARRAY['strength','cardio','mobility','recovery','nutrition'])[1 + g % 5] || ' training', "
+                + "g % 20 <> 0 "
+                + "FROM generate_series(1, " + ROWS + ") g");
+        statement.execute("INSERT INTO product_categories SELECT id, "
+                + "(ARRAY['Equipment','Apparel','Nutrition','Accessories'])[1 + id % 4] FROM products");
+        for (String ddl : PostgresSearchSchema.PRODUCT_STATEMENTS) {
+            statement.execute(ddl);
+        }
+        statement.execute("ANALYZE products");
+        statement.execute("ANALYZE product_categories");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
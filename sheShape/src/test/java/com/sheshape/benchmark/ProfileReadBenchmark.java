@@ -0,0 +1,205 @@
+package com.sheshape.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution (JMH sample mode, so p99 is reported) of reading one
+ * user's profile over 100k users: {@code perSection} replays the six
+ * round-trips {@code getUserProfile} used to make (the user, then one
+ * {@code findByUserId} per section), {@code joined} the single outer-join
+ * statement of {@code ProfileRepository.findSectionsByUserId}. The gap grows
+ * with the network round-trip time, so run it against a database on another
+ * host for realistic numbers. Needs a Postgres: pass {@code -Dbenchmark.db.url},
+ * {@code .user} and {@code .password}. The tables are seeded once into the
+ * {@code profile_benchmark} schema and reused.
+ * Run {@link #main} from the IDE or after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProfileReadBenchmark {
+
+    private static final int USERS = 100_000;
+
+    private static final List<String> PER_SECTION = List.of(
+            "SELECT * FROM users WHERE id = ?",
+            "SELECT * FROM profiles WHERE user_id = ?",
+            "SELECT * FROM physical_attributes WHERE user_id = ?",
+            "SELECT * FROM fitness_profiles WHERE user_id = ?",
+            "SELECT * FROM health_information WHERE user_id = ?",
+            "SELECT * FROM user_preferences WHERE user_id = ?");
+
+    private static final String JOINED = "SELECT u.profile_completed, p.*, pa.*, fp.*, hi.*, up.* FROM users u "
+            + "LEFT JOIN profiles p ON p.user_id = u.id "
+            + "LEFT JOIN physical_attributes pa ON pa.user_id = u.id "
+            + "LEFT JOIN fitness_profiles fp ON fp.user_id = u.id "
+            + "LEFT JOIN health_information hi ON hi.user_id = u.id "
+            + "LEFT JOIN user_preferences up ON up.user_id = u.id "
+            + "WHERE u.id = ?";
+
+    private Connection connection;
+    private List<PreparedStatement> perSection;
+    private PreparedStatement joined;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/sheshape"),
+                System.getProperty("benchmark.db.user", "postgres"),
+                System.getProperty("benchmark.db.password", "postgres"));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS profile_benchmark");
+            statement.execute("SET search_path TO profile_benchmark");
+            if (!seeded(statement)) {
+                seed(statement);
+            }
+        }
+
+        // Prepared once, as Hibernate's statement cache and the driver's server-side prepare would
+        perSection = PER_SECTION.stream().map(this::prepare).toList();
+        joined = prepare(JOINED);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long perSection() throws SQLException {
+        long userId = randomUser();
+        long columns = 0;
+        for (PreparedStatement statement : perSection) {
+            columns += read(statement, userId);
+        }
+        return columns;
+    }
+
+    @Benchmark
+    public long joined() throws SQLException {
+        return read(joined, randomUser());
+    }
+
+    private static long read(PreparedStatement statement, long userId) throws SQLException {
+        statement.setLong(1, userId);
+        long columns = 0;
+        try (ResultSet rows = statement.executeQuery()) {
+            int count = rows.getMetaData().getColumnCount();
+            while (rows.next()) {
+                for (int i = 1; i <= count; i++) {
+                    if (rows.getObject(i) != null) {
+                        columns++;
+                    }
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static long randomUser() {
+        return ThreadLocalRandom.current().nextLong(1, USERS + 1);
+    }
+
+    private PreparedStatement prepare(String sql) {
+        try {
+            return connection.prepareStatement(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean seeded(Statement statement) throws SQLException {
+        try (ResultSet rows = statement.executeQuery("SELECT count(*) FROM information_schema.tables "
+                + "WHERE table_schema = 'profile_benchmark' AND table_name = 'user_preferences'")) {
+            rows.next();
+            if (rows.getLong(1) == 0) {
+                return false;
+            }
+        }
+        try (ResultSet rows = statement.executeQuery("SELECT count(*) FROM users")) {
+            rows.next();
+            return rows.getLong(1) == USERS;
+        }
+    }
+
+    // The columns of each table, with a unique index on user_id as in the entities; some sections left empty
+    private static void seed(Statement statement) throws SQLException {
+        statement.execute("DROP TABLE IF EXISTS user_preferences, health_information, fitness_profiles, "
+                + "physical_attributes, profiles, users");
+        statement.execute("CREATE TABLE users (id bigint PRIMARY KEY, username varchar(255) NOT NULL, "
+                + "email varchar(255) NOT NULL, profile_completed boolean)");
+        statement.execute("CREATE TABLE profiles (id bigint PRIMARY KEY, user_id bigint NOT NULL UNIQUE, "
+                + "first_name varchar(255) NOT NULL, last_name varchar(255) NOT NULL, date_of_birth date, "
+                + "gender varchar(32), phone_number varchar(255), profile_picture_url varchar(255), "
+                + "version bigint NOT NULL, created_at timestamp NOT NULL, updated_at timestamp)");
+        statement.execute("CREATE TABLE physical_attributes (id bigint PRIMARY KEY, user_id bigint NOT NULL UNIQUE, "
+                + "height_cm integer, current_weight_kg double precision, target_weight_kg double precision, "
+                + "version bigint NOT NULL, created_at timestamp NOT NULL, updated_at timestamp)");
+        statement.execute("CREATE TABLE fitness_profiles (id bigint PRIMARY KEY, user_id bigint NOT NULL UNIQUE, "
+                + "fitness_level varchar(32), primary_goal varchar(32), secondary_goals varchar(255)[], "
+                + "preferred_activity_types varchar(255)[], workout_frequency integer, workout_duration integer, "
+                + "preferred_workout_days varchar(255)[], preferred_workout_times varchar(255)[], "
+                + "version bigint NOT NULL, created_at timestamp NOT NULL, updated_at timestamp)");
+        statement.execute("CREATE TABLE health_information (id bigint PRIMARY KEY, user_id bigint NOT NULL UNIQUE, "
+                + "dietary_restrictions varchar(255)[], health_conditions varchar(255)[], medications varchar(255)[], "
+                + "emergency_contact_name varchar(255), emergency_contact_phone varchar(255), "
+                + "version bigint NOT NULL, created_at timestamp NOT NULL, updated_at timestamp)");
+        statement.execute("CREATE TABLE user_preferences (id bigint PRIMARY KEY, user_id bigint NOT NULL UNIQUE, "
+                + "timezone varchar(255), language varchar(10), email_notifications boolean NOT NULL, "
+                + "push_notifications boolean NOT NULL, privacy_level varchar(32), "
+                + "version bigint NOT NULL, created_at timestamp NOT NULL, updated_at timestamp)");
+
+        statement.execute("INSERT INTO users SELECT g, 'user' || g, 'user' || g || '@sheshape.com', g % 5 <> 0 "
+                + "FROM generate_series(1, " + USERS + ") g");
+        statement.execute("INSERT INTO profiles SELECT id, id, 'First' || id, 'Last' || id, "
+                + "date '1990-01-01' + (id % 7000)::int, 'FEMALE', '+4790000000', NULL, 0, now(), now() "
+                + "FROM users WHERE profile_completed");
+        statement.execute("INSERT INTO physical_attributes SELECT id, id, 150 + id % 40, 55 + id % 30, 60, 0, now(), now() "
+                + "FROM users WHERE profile_completed AND id % 3 <> 0");
+        statement.execute("INSERT INTO fitness_profiles SELECT id, id, 'BEGINNER', 'ENDURANCE', "
+                + "'{FLEXIBILITY,STRESS_RELIEF}', '{YOGA,RUNNING}', 3, 45, '{Monday,Wednesday,Friday}', '{Morning (8-11 AM)}', "
+                + "0, now(), now() "
+                + "FROM users WHERE profile_completed");
+        statement.execute("INSERT INTO health_information SELECT id, id, '{Vegetarian}', NULL, NULL, "
+                + "'Contact ' || id, '+4791111111', 0, now(), now() FROM users WHERE profile_completed AND id % 2 = 0");
+        statement.execute("INSERT INTO user_preferences SELECT id, id, 'Europe/Oslo', 'en', true, true, 'PRIVATE', "
+                + "0, now(), now() FROM users WHERE profile_completed");
+        for (String table : List.of("users", "profiles", "physical_attributes", "fitness_profiles",
+                "health_information", "user_preferences")) {
+            statement.execute("ANALYZE " + table);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProfileReadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,164 @@
+package com.sheshape.recommendation;
+
+import com.sheshape.model.GymProgram;
+import com.sheshape.model.NutritionPlan;
+import com.sheshape.model.User;
+import com.sheshape.model.UserGymProgram;
+import com.sheshape.model.UserNutritionPlan;
+import com.sheshape.recommendation.Recommendation.Kind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class CoPurchaseRecommenderTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CoPurchaseRecommender recommender;
+    private User trainer;
+    private GymProgram strength;
+    private GymProgram glutes;
+    private GymProgram retired;
+    private NutritionPlan mealPrep;
+
+    @BeforeEach
+    void setUp() {
+        recommender = recommender();
+        trainer = user("sarah");
+        strength = program("Strength Basics", true);
+        glutes = program("Glute Builder", true);
+        retired = program("Retired Plan", false);
+        mealPrep = plan("Meal Prep");
+
+        User maya = user("maya");
+        buy(maya, strength);
+        buy(maya, glutes);
+        buy(maya, mealPrep);
+        User noor = user("noor");
+        buy(noor, strength);
+        buy(noor, glutes);
+        User lea = user("lea");
+        buy(lea, strength);
+        buy(lea, mealPrep);
+        User ida = user("ida");
+        buy(ida, strength);
+        buy(ida, glutes);
+        buy(ida, retired);
+        entityManager.flush();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recommender.shutdown();
+    }
+
+    @Test
+    void ranksByCoPurchasesRelativeToEachItemsBuyers() {
+        recommender.update();
+
+        // Bought together by 3 of 4 and 3 of 3, then 2 of 4 and 2 of 2; the retired program and
+        // pairs bought together only once are left out
+        assertThat(recommender.forProgram(strength.getId(), 10))
+                .extracting(Recommendation::kind, Recommendation::id, Recommendation::coPurchases)
+                .containsExactly(tuple(Kind.PROGRAM, glutes.getId(), 3), tuple(Kind.NUTRITION_PLAN, mealPrep.getId(), 2));
+        assertThat(recommender.forProgram(strength.getId(), 10).get(0).score()).isCloseTo(3 / Math.sqrt(12), within(1e-9));
+        assertThat(recommender.forProgram(strength.getId(), 1)).hasSize(1);
+        assertThat(recommender.forProgram(retired.getId(), 10)).isEmpty();
+    }
+
+    @Test
+    void laterRunsCountOnlyNewPurchases() {
+        recommender.update();
+
+        User lea = entityManager.getEntityManager()
+                .createQuery("SELECT u FROM User u WHERE u.username = 'lea'", User.class).getSingleResult();
+        buy(lea, glutes);
+        User zoe = user("zoe");
+        buy(zoe, glutes);
+        buy(zoe, mealPrep);
+        entityManager.flush();
+        recommender.update();
+
+        assertThat(recommender.forProgram(strength.getId(), 10))
+                .extracting(Recommendation::id, Recommendation::coPurchases)
+                .containsExactly(tuple(glutes.getId(), 4), tuple(mealPrep.getId(), 2));
+        assertThat(recommender.forPlan(mealPrep.getId(), 10))
+                .extracting(Recommendation::id, Recommendation::coPurchases)
+                .containsExactly(tuple(glutes.getId(), 3), tuple(strength.getId(), 2));
+
+        // The same as counting everything at once
+        CoPurchaseRecommender rebuilt = recommender();
+        rebuilt.update();
+        assertThat(rebuilt.forProgram(strength.getId(), 10)).isEqualTo(recommender.forProgram(strength.getId(), 10));
+        assertThat(rebuilt.forPlan(mealPrep.getId(), 10)).isEqualTo(recommender.forPlan(mealPrep.getId(), 10));
+        rebuilt.shutdown();
+    }
+
+    // No commit lag: the test's rows are visible to its own transaction straight away
+    private CoPurchaseRecommender recommender() {
+        return new CoPurchaseRecommender(jdbcTemplate, transactionManager, 20, 2, Duration.ZERO);
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@sheshape.com");
+        user.setPassword("secret");
+        user.setRole(User.Role.CLIENT);
+        return entityManager.persist(user);
+    }
+
+    private GymProgram program(String title, boolean active) {
+        GymProgram program = new GymProgram();
+        program.setTitle(title);
+        program.setDifficultyLevel(GymProgram.DifficultyLevel.BEGINNER);
+        program.setDurationDays(30);
+        program.setPrice(new BigDecimal("49.00"));
+        program.setIsActive(active);
+        program.setTrainer(trainer);
+        return entityManager.persist(program);
+    }
+
+    private NutritionPlan plan(String title) {
+        NutritionPlan plan = new NutritionPlan();
+        plan.setTitle(title);
+        plan.setDurationDays(30);
+        plan.setPrice(new BigDecimal("19.00"));
+        plan.setNutritionist(trainer);
+        return entityManager.persist(plan);
+    }
+
+    private void buy(User user, GymProgram program) {
+        UserGymProgram enrollment = new UserGymProgram();
+        enrollment.setUser(user);
+        enrollment.setProgram(program);
+        entityManager.persist(enrollment);
+    }
+
+    private void buy(User user, NutritionPlan plan) {
+        UserNutritionPlan enrollment = new UserNutritionPlan();
+        enrollment.setUser(user);
+        enrollment.setPlan(plan);
+        entityManager.persist(enrollment);
+    }
+}
@@ -0,0 +1,170 @@
+package com.sheshape.repository;
+
+import com.sheshape.dto.CursorPage;
+import com.sheshape.dto.GymProgramDto;
+import com.sheshape.dto.ProgramEnrollmentDto;
+import com.sheshape.model.Authority;
+import com.sheshape.model.GymProgram;
+import com.sheshape.model.GymSession;
+import com.sheshape.model.User;
+import com.sheshape.model.UserGymProgram;
+import com.sheshape.model.profile.Profile;
+import com.sheshape.service.impl.GymProgramServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class GymProgramCatalogQueryCountTest extends QueryCountSupport {
+
+    @Autowired
+    private GymProgramRepository gymProgramRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserGymProgramRepository userGymProgramRepository;
+
+    private GymProgramServiceImpl gymProgramService;
+    private User firstTrainer;
+    private GymProgram strengthBasics;
+
+    @BeforeEach
+    void setUp() {
+        gymProgramService = new GymProgramServiceImpl(gymProgramRepository, null, userRepository, userGymProgramRepository,
+                null, null, 100);
+
+        Authority trainerRole = entityManager.persist(new Authority("ROLE_TRAINER"));
+        firstTrainer = trainer("sarah", trainerRole);
+        User secondTrainer = trainer("mia", trainerRole);
+
+        strengthBasics = program(firstTrainer, "Strength Basics", true, 3);
+        program(firstTrainer, "Glute Builder", true, 4);
+        program(secondTrainer, "HIIT 30", true, 2);
+        program(secondTrainer, "Retired Plan", false, 1);
+    }
+
+    @Test
+    void activeCatalogIsLoadedInOneStatement() {
+        AtomicReference<List<GymProgramDto>> result = new AtomicReference<>();
+
+        long statements = countStatements(() -> result.set(gymProgramService.getActiveGymPrograms()));
+
+        assertThat(result.get()).hasSize(3);
+        assertThat(result.get()).allSatisfy(program -> {
+            assertThat(program.getTrainer().getProfile()).isNotNull();
+            assertThat(program.getSessions()).isNotEmpty();
+        });
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void fullCatalogIsLoadedInOneStatement() {
+        long statements = countStatements(() ->
+                assertThat(gymProgramService.getAllGymPrograms()).hasSize(4));
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void trainerCatalogIsLoadedInOneStatement() {
+        long statements = countStatements(() ->
+                assertThat(gymProgramService.getGymProgramsByTrainer(firstTrainer.getId())).hasSize(2));
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void activeCatalogPagesWithKeysetCursors() {
+        AtomicReference<CursorPage<GymProgramDto>> first = new AtomicReference<>();
+
+        // Seek the ids, then load the page's graph
+        long statements = countStatements(() -> first.set(gymProgramService.getActiveGymPrograms(null, 2)));
+
+        assertThat(statements).isEqualTo(2);
+        assertThat(first.get().getContent()).extracting(GymProgramDto::getTitle)
+                .containsExactly("HIIT 30", "Glute Builder");
+        assertThat(first.get().getNextCursor()).isNotNull();
+
+        CursorPage<GymProgramDto> second = gymProgramService.getActiveGymPrograms(first.get().getNextCursor(), 2);
+        assertThat(second.getContent()).extracting(GymProgramDto::getTitle)
+                .containsExactly("Strength Basics");
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void enrollmentPageWithExpansionsIsLoadedInConstantStatements() {
+        Authority userRole = entityManager.persist(new Authority("ROLE_USER"));
+        for (int i = 0; i < 10; i++) {
+            UserGymProgram enrollment = new UserGymProgram();
+            enrollment.setUser(trainer("member" + i, userRole));
+            enrollment.setProgram(strengthBasics);
+            entityManager.persist(enrollment);
+        }
+
+        AtomicReference<Page<ProgramEnrollmentDto>> result = new AtomicReference<>();
+        PageRequest pageable = PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "purchaseDate"));
+
+        // Page + count + the page's users + the program, however many rows there are
+        long statements = countStatements(() -> result.set(gymProgramService.getEnrollmentsForGymProgram(
+                strengthBasics.getId(), Set.of("user", "program"), pageable)));
+
+        assertThat(result.get().getContent()).hasSize(5);
+        assertThat(result.get().getTotalElements()).isEqualTo(10);
+        assertThat(result.get().getContent()).allSatisfy(enrollment -> {
+            assertThat(enrollment.getUser().getProfile()).isNotNull();
+            assertThat(enrollment.getProgram().getSessions()).hasSize(3);
+        });
+        assertThat(statements).isEqualTo(4);
+    }
+
+    private User trainer(String name, Authority role) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@sheshape.com");
+        user.setPassword("{noop}secret");
+        user.setRole(User.Role.TRAINER);
+        user.setAuthorities(Set.of(role));
+        entityManager.persist(user);
+
+        Profile profile = new Profile();
+        profile.setUser(user);
+        profile.setFirstName(name);
+        profile.setLastName("Trainer");
+        entityManager.persist(profile);
+        return user;
+    }
+
+    private GymProgram program(User trainer, String title, boolean active, int sessions) {
+        GymProgram program = new GymProgram();
+        program.setTitle(title);
+        program.setDifficultyLevel(GymProgram.DifficultyLevel.BEGINNER);
+        program.setDurationDays(30);
+        program.setPrice(new BigDecimal("19.99"));
+        program.setIsActive(active);
+        program.setTrainer(trainer);
+
+        for (int i = 1; i <= sessions; i++) {
+            GymSession session = new GymSession();
+            session.setTitle(title + " #" + i);
+            session.setSessionOrder(i);
+            program.addSession(session);
+        }
+        return entityManager.persist(program);
+    }
+}
@@ -0,0 +1,110 @@
+package com.sheshape.repository;
+
+import com.sheshape.dto.ProductDto;
+import com.sheshape.dto.ProductSummaryDto;
+import com.sheshape.model.Product;
+import com.sheshape.model.ProductImage;
+import com.sheshape.search.ProductSearchIndex;
+import com.sheshape.service.impl.InStockIndex;
+import com.sheshape.service.impl.InventoryLedger;
+import com.sheshape.service.impl.ProductCatalogCache;
+import com.sheshape.service.impl.ProductServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductCatalogQueryCountTest extends QueryCountSupport {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ProductServiceImpl productService;
+
+    @BeforeEach
+    void setUp() {
+        ProductCatalogCache catalogCache = new ProductCatalogCache(new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(1), 100, Duration.ofMinutes(1));
+        InStockIndex inStockIndex = new InStockIndex(productRepository, transactionManager);
+        productService = new ProductServiceImpl(productRepository, productImageRepository, catalogCache, inStockIndex,
+                new InventoryLedger(productRepository, catalogCache, inStockIndex, transactionManager, 1, 10),
+                new ProductSearchIndex(productRepository, transactionManager), transactionManager);
+
+        for (int i = 1; i <= 6; i++) {
+            product("Yoga mat " + i);
+        }
+    }
+
+    @Test
+    void listingPageFetchesImagesAndCategoriesOnce() {
+        AtomicReference<Page<ProductDto>> result = new AtomicReference<>();
+        PageRequest pageable = PageRequest.of(0, 4, Sort.by("name"));
+
+        // Page + count + the page's images + the page's categories, whatever the page size
+        long statements = countStatements(() -> result.set(productService.getAllActiveProducts(pageable)));
+
+        assertThat(result.get().getContent()).hasSize(4);
+        assertThat(result.get().getTotalElements()).isEqualTo(6);
+        assertThat(result.get().getContent()).allSatisfy(product -> {
+            assertThat(product.getImages()).extracting("position").containsExactly(0, 1);
+            assertThat(product.getCategories()).containsExactlyInAnyOrder("Equipment", "Yoga");
+        });
+        assertThat(statements).isEqualTo(4);
+    }
+
+    @Test
+    void summariesCarryOnlyTheMainImage() {
+        Page<ProductSummaryDto> summaries = productService.getActiveProductSummaries("Yoga",
+                PageRequest.of(0, 10, Sort.by("name")));
+
+        assertThat(summaries.getContent()).hasSize(6);
+        assertThat(summaries.getContent()).allSatisfy(summary -> {
+            assertThat(summary.getMainImage().isMain()).isTrue();
+            assertThat(summary.getMainImage().getImageUrl()).endsWith("/main.jpg");
+        });
+    }
+
+    private void product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("29.99"));
+        product.setInventoryCount(10);
+        product.setCategories(Set.of("Equipment", "Yoga"));
+        // The main image deliberately isn't first
+        product.getImages().add(image(product, "side.jpg", false, 0));
+        product.getImages().add(image(product, "main.jpg", true, 1));
+        entityManager.persist(product);
+    }
+
+    private static ProductImage image(Product product, String file, boolean main, int position) {
+        ProductImage image = new ProductImage();
+        image.setProduct(product);
+        image.setImageUrl("https://cdn.sheshape.com/" + product.getName() + "/" + file);
+        image.setFileKey(product.getName() + "/" + file);
+        image.setMain(main);
+        image.setPosition(position);
+        return image;
+    }
+}
@@ -0,0 +1,108 @@
+package com.sheshape.repository;
+
+import com.sheshape.exception.ResourceNotFoundException;
+import com.sheshape.model.Product;
+import com.sheshape.model.ProductImage;
+import com.sheshape.service.impl.ProductCatalogCache;
+import com.sheshape.service.impl.ProductImageServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Postgres mode, for UPDATE ... FROM
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:images;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductImageReorderQueryCountTest extends QueryCountSupport {
+
+    private static final int IMAGES = 20;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    private ProductImageServiceImpl productImageService;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        productImageService = new ProductImageServiceImpl(productImageRepository, productRepository,
+                new ProductCatalogCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), 10, Duration.ofMinutes(1)));
+        product = product("Foam roller");
+    }
+
+    @Test
+    void reorderIsFourStatementsHoweverManyImagesMove() {
+        List<ProductImage> images = productImageRepository.findByProductIdOrderByPositionAsc(product.getId());
+        Long newMainId = images.get(IMAGES - 1).getId();
+
+        // Reverse the order and make the last image the main one
+        List<ProductImage> reordered = new ArrayList<>();
+        for (ProductImage image : images) {
+            reordered.add(reference(image.getId(), IMAGES - 1 - image.getPosition(), image.getId().equals(newMainId)));
+        }
+
+        // Ownership check, clear the main, set the main, one UPDATE ... FROM (VALUES ...)
+        long statements = countStatements(() -> productImageService.updateImagePositions(product.getId(), reordered));
+
+        assertThat(statements).isEqualTo(4);
+        List<ProductImage> after = productImageRepository.findByProductIdOrderByPositionAsc(product.getId());
+        assertThat(after).extracting(ProductImage::getId).first().isEqualTo(newMainId);
+        assertThat(after).filteredOn(ProductImage::isMain).extracting(ProductImage::getId).containsExactly(newMainId);
+    }
+
+    @Test
+    void imagesOfAnotherProductAreRejected() {
+        Product other = product("Jump rope");
+        Long foreignId = productImageRepository.findIdsByProductId(other.getId()).get(0);
+
+        assertThatThrownBy(() -> productImageService.updateImagePositions(product.getId(),
+                List.of(reference(foreignId, 0, true))))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(productImageRepository.findByProductIdAndIsMainTrue(other.getId()).getId()).isEqualTo(foreignId);
+    }
+
+    private static ProductImage reference(Long id, int position, boolean main) {
+        ProductImage image = new ProductImage();
+        image.setId(id);
+        image.setPosition(position);
+        image.setMain(main);
+        return image;
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("19.99"));
+        product.setInventoryCount(5);
+        for (int i = 0; i < IMAGES; i++) {
+            ProductImage image = new ProductImage();
+            image.setProduct(product);
+            image.setImageUrl("https://cdn.sheshape.com/" + name + "/" + i + ".jpg");
+            image.setFileKey(name + "/" + i + ".jpg");
+            image.setMain(i == 0);
+            image.setPosition(i);
+            product.getImages().add(image);
+        }
+        return entityManager.persistFlushFind(product);
+    }
+}
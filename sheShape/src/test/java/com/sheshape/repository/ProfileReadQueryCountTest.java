@@ -0,0 +1,129 @@
+package com.sheshape.repository;
+
+import com.sheshape.dto.profile.ProfileResponseDTO;
+import com.sheshape.model.User;
+import com.sheshape.model.profile.FitnessProfile;
+import com.sheshape.model.profile.HealthInformation;
+import com.sheshape.model.profile.PhysicalAttributes;
+import com.sheshape.model.profile.Profile;
+import com.sheshape.model.profile.UserPreferences;
+import com.sheshape.repository.profile.FitnessProfileRepository;
+import com.sheshape.repository.profile.HealthInformationRepository;
+import com.sheshape.repository.profile.PhysicalAttributesRepository;
+import com.sheshape.repository.profile.ProfileRepository;
+import com.sheshape.repository.profile.UserPreferencesRepository;
+import com.sheshape.service.ProfileService;
+import com.sheshape.service.impl.ProfileCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProfileReadQueryCountTest extends QueryCountSupport {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    @Autowired
+    private PhysicalAttributesRepository physicalAttributesRepository;
+
+    @Autowired
+    private FitnessProfileRepository fitnessProfileRepository;
+
+    @Autowired
+    private HealthInformationRepository healthInformationRepository;
+
+    @Autowired
+    private UserPreferencesRepository userPreferencesRepository;
+
+    private ProfileService profileService;
+
+    @BeforeEach
+    void setUp() {
+        profileService = new ProfileService(userRepository, profileRepository, physicalAttributesRepository,
+                fitnessProfileRepository, healthInformationRepository, userPreferencesRepository, null,
+                new ProfileCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1)), null);
+    }
+
+    @Test
+    void allSectionsAreReadInOneStatementThenCached() {
+        Long userId = user("maya", true);
+        Profile profile = new Profile();
+        profile.setUser(entityManager.find(User.class, userId));
+        profile.setFirstName("Maya");
+        profile.setLastName("Lind");
+        entityManager.persist(profile);
+
+        PhysicalAttributes attributes = new PhysicalAttributes();
+        attributes.setUserId(userId);
+        attributes.setHeightCm(168);
+        entityManager.persist(attributes);
+
+        FitnessProfile fitness = new FitnessProfile();
+        fitness.setUserId(userId);
+        fitness.setPrimaryGoal(FitnessProfile.FitnessGoal.ENDURANCE);
+        fitness.setSecondaryGoals(List.of("FLEXIBILITY", "STRESS_RELIEF"));
+        entityManager.persist(fitness);
+
+        HealthInformation health = new HealthInformation();
+        health.setUserId(userId);
+        health.setDietaryRestrictions(List.of("vegetarian"));
+        entityManager.persist(health);
+
+        UserPreferences preferences = new UserPreferences();
+        preferences.setUserId(userId);
+        preferences.setTimezone("Europe/Oslo");
+        entityManager.persist(preferences);
+
+        AtomicReference<ProfileResponseDTO> result = new AtomicReference<>();
+        long statements = countStatements(() -> result.set(profileService.getUserProfile(userId)));
+
+        assertThat(statements).isEqualTo(1);
+        ProfileResponseDTO loaded = result.get();
+        assertThat(loaded.getProfileCompleted()).isTrue();
+        assertThat(loaded.getFirstName()).isEqualTo("Maya");
+        assertThat(loaded.getHeightCm()).isEqualTo(168);
+        assertThat(loaded.getSecondaryGoals()).containsExactly("FLEXIBILITY", "STRESS_RELIEF");
+        assertThat(loaded.getDietaryRestrictions()).containsExactly("vegetarian");
+        assertThat(loaded.getTimezone()).isEqualTo("Europe/Oslo");
+
+        // The summary comes from the same cached entry
+        assertThat(countStatements(() -> profileService.getUserProfileSummary(userId))).isZero();
+    }
+
+    @Test
+    void missingSectionsAreLeftEmpty() {
+        Long userId = user("noor", false);
+
+        ProfileResponseDTO loaded = profileService.getUserProfile(userId);
+
+        assertThat(loaded.getProfileCompleted()).isFalse();
+        assertThat(loaded.getId()).isNull();
+        assertThat(loaded.getHeightCm()).isNull();
+        assertThat(loaded.getTimezone()).isNull();
+    }
+
+    private Long user(String username, boolean profileCompleted) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@sheshape.com");
+        user.setPassword("secret");
+        user.setRole(User.Role.ADMIN);
+        user.setProfileCompleted(profileCompleted);
+        return entityManager.persistAndGetId(user, Long.class);
+    }
+}
@@ -0,0 +1,35 @@
+package com.sheshape.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+/**
+ * Base for {@code @DataJpaTest}s that pin how many SQL statements a read path
+ * issues, so N+1 regressions fail the build. Subclasses must enable
+ * {@code hibernate.generate_statistics}.
+ */
+public abstract class QueryCountSupport {
+
+    @Autowired
+    protected TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Flushes and clears the persistence context so nothing is served from the
+     * first-level cache, then returns the number of statements {@code action} prepares.
+     */
+    protected long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
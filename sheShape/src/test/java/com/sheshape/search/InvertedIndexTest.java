@@ -0,0 +1,85 @@
+package com.sheshape.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex(Map.of("name", 3f, "description", 1f));
+        index.index(product(1L, "Resistance bands", "Five bands for strength training", "Equipment"));
+        index.index(product(2L, "Yoga mat", "Non-slip mat, great with resistance work", "Equipment", "Yoga"));
+        index.index(product(3L, "Running shoes", "Light trainers for runners", "Apparel"));
+        index.index(product(4L, "Protein powder", "Whey protein for recovery after training", "Nutrition"));
+    }
+
+    @Test
+    void matchesStemsAndRanksNameAboveDescription() {
+        SearchResult result = index.search("resistance", null, 0, 10);
+
+        assertThat(result.ids()).containsExactly(1L, 2L);
+        assertThat(result.total()).isEqualTo(2);
+        assertThat(index.search("run", null, 0, 10).ids()).containsExactly(3L);
+        assertThat(index.search("trained", null, 0, 10).ids()).containsExactlyInAnyOrder(1L, 3L, 4L);
+    }
+
+    @Test
+    void requiresEveryTermAndExpandsTheLastAsPrefix() {
+        assertThat(index.search("strength band", null, 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("strength yoga", null, 0, 10).ids()).isEmpty();
+        assertThat(index.search("prot", null, 0, 10).ids()).containsExactly(4L);
+        assertThat(index.search("trainin", null, 0, 10).ids()).containsExactlyInAnyOrder(1L, 3L, 4L);
+    }
+
+    @Test
+    void countsFacetsOverAllMatchesAndFiltersCaseInsensitively() {
+        SearchResult result = index.search("training", "nutrition", 0, 10);
+
+        assertThat(result.ids()).containsExactly(4L);
+        assertThat(result.total()).isEqualTo(1);
+        assertThat(result.facets()).containsEntry("Equipment", 1L).containsEntry("Nutrition", 1L);
+    }
+
+    @Test
+    void pagesThroughRankedHits() {
+        SearchResult page = index.search("resistance", null, 1, 1);
+        assertThat(page.ids()).containsExactly(2L);
+        assertThat(page.total()).isEqualTo(2);
+    }
+
+    @Test
+    void updatesAndRemovalsApplyImmediately() {
+        index.index(product(2L, "Cork yoga block", "Firm support", "Yoga"));
+        index.remove(1L);
+
+        assertThat(index.search("resistance", null, 0, 10).ids()).isEmpty();
+        assertThat(index.search("cork", null, 0, 10).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void rebuildKeepsLiveWritesAndDropsRowsItDidNotSee() {
+        index.beginRebuild();
+        index.index(product(3L, "Trail running shoes", "Grippy soles", "Apparel"));
+        index.rebuildBatch(List.of(
+                product(2L, "Yoga mat", "Non-slip mat", "Yoga"),
+                product(3L, "Running shoes", "Stale row read before the update", "Apparel")));
+        index.endRebuild();
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search("trail", null, 0, 10).ids()).containsExactly(3L);
+        assertThat(index.search("stale", null, 0, 10).ids()).isEmpty();
+        assertThat(index.search("protein", null, 0, 10).ids()).isEmpty();
+    }
+
+    private static SearchDocument product(Long id, String name, String description, String... categories) {
+        return new SearchDocument(id, Map.of("name", name, "description", description), List.of(categories));
+    }
+}
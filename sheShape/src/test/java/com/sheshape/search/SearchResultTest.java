@@ -0,0 +1,41 @@
+package com.sheshape.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultTest {
+
+    private static final List<Object[]> FACETS = List.<Object[]>of(new Object[] {"Yoga", 5L});
+
+    // Five hits ranked 11..15, paged as the native search queries do: [id, total matches]
+    private static List<Object[]> hits(int limit, int offset) {
+        return LongStream.rangeClosed(11, 15)
+                .skip(offset)
+                .limit(limit)
+                .mapToObj(id -> new Object[] {id, 5L})
+                .toList();
+    }
+
+    @Test
+    void readsAPageWithItsTotal() {
+        SearchResult result = SearchResult.fromPage(SearchResultTest::hits, 2, 2, () -> FACETS);
+
+        assertThat(result.ids()).containsExactly(13L, 14L);
+        assertThat(result.total()).isEqualTo(5);
+        assertThat(result.facets()).isEqualTo(Map.of("Yoga", 5L));
+    }
+
+    @Test
+    void keepsTheTotalPastTheLastPage() {
+        SearchResult result = SearchResult.fromPage(SearchResultTest::hits, 10, 5, () -> FACETS);
+
+        assertThat(result.ids()).isEmpty();
+        assertThat(result.total()).isEqualTo(5);
+        assertThat(result.facets()).isEqualTo(Map.of("Yoga", 5L));
+    }
+}
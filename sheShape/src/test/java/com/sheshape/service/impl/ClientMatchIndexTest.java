@@ -0,0 +1,100 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.model.GymProgram;
+import com.sheshape.model.profile.FitnessProfile;
+import com.sheshape.model.profile.FitnessProfile.FitnessGoal;
+import com.sheshape.model.profile.FitnessProfile.FitnessLevel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientMatchIndexTest {
+
+    private ClientMatchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ClientMatchIndex(null, null);
+        index.index(profile(1L, FitnessLevel.BEGINNER, FitnessGoal.WEIGHT_LOSS, List.of("ENDURANCE"), 3, 45,
+                List.of("Monday", "Wednesday", "Friday")));
+        index.index(profile(2L, FitnessLevel.ADVANCED, FitnessGoal.MUSCLE_GAIN, List.of("STRENGTH_BUILDING"), 5, 60,
+                List.of("Tuesday", "Thursday")));
+        index.index(profile(3L, FitnessLevel.INTERMEDIATE, FitnessGoal.WEIGHT_LOSS, List.of(), 2, 30,
+                List.of("Monday")));
+        index.index(profile(4L, null, null, List.of(), null, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void ranksClientsByFitToTheProgram() {
+        ClientMatchIndex.Target target = ClientMatchIndex.Target.of(
+                program(GymProgram.DifficultyLevel.BEGINNER, List.of("WEIGHT_LOSS", "ENDURANCE"), 3,
+                        List.of("Monday", "Wednesday", "Friday")), 40.0);
+
+        List<ClientMatchIndex.Match> matches = index.top(target, 10, Set.of());
+
+        assertThat(matches).extracting(ClientMatchIndex.Match::userId).containsExactly(1L, 3L, 2L, 4L);
+        // Level, primary and one secondary goal, frequency, duration and all three days
+        assertThat(matches.get(0).score()).isEqualTo(35 + 20 + 5 + 15 + 10 + 10);
+        assertThat(matches.get(3).score()).isZero();
+    }
+
+    @Test
+    void keepsOnlyTheBestAndSkipsExcludedClients() {
+        ClientMatchIndex.Target target = ClientMatchIndex.Target.of(
+                program(GymProgram.DifficultyLevel.ADVANCED, List.of("MUSCLE_GAIN"), 4, List.of()), 60.0);
+
+        assertThat(index.top(target, 1, Set.of())).extracting(ClientMatchIndex.Match::userId).containsExactly(2L);
+        assertThat(index.top(target, 1, Set.of(2L))).extracting(ClientMatchIndex.Match::userId).containsExactly(1L);
+    }
+
+    @Test
+    void updatesAndRemovalsApplyToLaterQueries() {
+        ClientMatchIndex.Target target = ClientMatchIndex.Target.of(
+                program(GymProgram.DifficultyLevel.ADVANCED, List.of("MUSCLE_GAIN"), 0, List.of()), null);
+
+        index.index(profile(4L, FitnessLevel.EXPERT, FitnessGoal.MUSCLE_GAIN, List.of(), null, null, List.of()));
+        index.remove(2L);
+
+        assertThat(index.top(target, 2, Set.of())).extracting(ClientMatchIndex.Match::userId).containsExactly(4L, 3L);
+        assertThat(index.size()).isEqualTo(3);
+
+        // The freed slot is reused
+        index.index(profile(5L, FitnessLevel.ADVANCED, FitnessGoal.MUSCLE_GAIN, List.of(), null, null, List.of()));
+        assertThat(index.top(target, 2, Set.of())).extracting(ClientMatchIndex.Match::userId).containsExactly(4L, 5L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    private static FitnessProfile profile(Long userId, FitnessLevel level, FitnessGoal primaryGoal,
+                                          List<String> secondaryGoals, Integer frequency, Integer duration,
+                                          List<String> days) {
+        FitnessProfile profile = new FitnessProfile();
+        profile.setUserId(userId);
+        profile.setFitnessLevel(level);
+        profile.setPrimaryGoal(primaryGoal);
+        profile.setSecondaryGoals(secondaryGoals);
+        profile.setWorkoutFrequency(frequency);
+        profile.setWorkoutDuration(duration);
+        profile.setPreferredWorkoutDays(days);
+        return profile;
+    }
+
+    private static GymProgram program(GymProgram.DifficultyLevel difficulty, List<String> goals, int sessionsPerWeek,
+                                      List<String> days) {
+        GymProgram program = new GymProgram();
+        program.setDifficultyLevel(difficulty);
+        program.setTargetGoals(goals);
+        program.setSessionsPerWeek(sessionsPerWeek == 0 ? null : sessionsPerWeek);
+        program.setScheduleDays(days);
+        return program;
+    }
+}
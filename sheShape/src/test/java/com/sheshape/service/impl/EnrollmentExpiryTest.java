@@ -0,0 +1,132 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.model.GymProgram;
+import com.sheshape.model.NutritionPlan;
+import com.sheshape.model.User;
+import com.sheshape.model.UserGymProgram;
+import com.sheshape.model.UserNutritionPlan;
+import com.sheshape.repository.UserGymProgramRepository;
+import com.sheshape.repository.UserNutritionPlanRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class EnrollmentExpiryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserGymProgramRepository userGymProgramRepository;
+
+    @Autowired
+    private UserNutritionPlanRepository userNutritionPlanRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EnrollmentExpiry expiry;
+
+    @BeforeEach
+    void setUp() {
+        // Two batches of two per run
+        expiry = new EnrollmentExpiry(userGymProgramRepository, userNutritionPlanRepository,
+                transactionManager, meterRegistry, 2, 2);
+
+        User trainer = user("sarah");
+        GymProgram program = new GymProgram();
+        program.setTitle("Strength Basics");
+        program.setDifficultyLevel(GymProgram.DifficultyLevel.BEGINNER);
+        program.setDurationDays(30);
+        program.setPrice(new BigDecimal("49.00"));
+        program.setTrainer(trainer);
+        entityManager.persist(program);
+        NutritionPlan plan = new NutritionPlan();
+        plan.setTitle("Meal Prep");
+        plan.setDurationDays(30);
+        plan.setPrice(new BigDecimal("19.00"));
+        plan.setNutritionist(trainer);
+        entityManager.persist(plan);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 1; i <= 5; i++) {
+            enroll(user("overdue" + i), program, now.minusDays(i), UserGymProgram.Status.ACTIVE);
+        }
+        enroll(user("current"), program, now.plusDays(3), UserGymProgram.Status.ACTIVE);
+        enroll(user("cancelled"), program, now.minusDays(1), UserGymProgram.Status.CANCELLED);
+        enroll(user("lifetime"), program, null, UserGymProgram.Status.ACTIVE);
+
+        UserNutritionPlan enrollment = new UserNutritionPlan();
+        enrollment.setUser(user("dieter"));
+        enrollment.setPlan(plan);
+        enrollment.setExpiryDate(now.minusHours(1));
+        entityManager.persist(enrollment);
+        entityManager.flush();
+    }
+
+    @Test
+    void expiresOverdueEnrollmentsInBoundedBatches() {
+        expiry.expireDue();
+
+        // Capped at four this run, the oldest first; the fifth waits and shows up as lag
+        assertThat(gymStatuses("EXPIRED")).isEqualTo(4);
+        assertThat(meterRegistry.get(EnrollmentExpiry.EXPIRED_METER).tag("type", "gym_program")
+                .summary().totalAmount()).isEqualTo(4);
+        assertThat(lag("gym_program")).isBetween(23.0 * 3600, 25.0 * 3600);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_nutrition_plans WHERE status = 'EXPIRED'", Integer.class)).isEqualTo(1);
+        assertThat(lag("nutrition_plan")).isZero();
+
+        expiry.expireDue();
+
+        // Future, open-ended and cancelled enrollments are left alone
+        assertThat(gymStatuses("EXPIRED")).isEqualTo(5);
+        assertThat(gymStatuses("ACTIVE")).isEqualTo(2);
+        assertThat(gymStatuses("CANCELLED")).isEqualTo(1);
+        assertThat(lag("gym_program")).isZero();
+    }
+
+    private int gymStatuses(String status) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_gym_programs WHERE status = ?", Integer.class, status);
+    }
+
+    private double lag(String type) {
+        return meterRegistry.get(EnrollmentExpiry.LAG_METER).tag("type", type).timeGauge().value(TimeUnit.SECONDS);
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@sheshape.com");
+        user.setPassword("secret");
+        user.setRole(User.Role.CLIENT);
+        return entityManager.persist(user);
+    }
+
+    private void enroll(User user, GymProgram program, LocalDateTime expiryDate, UserGymProgram.Status status) {
+        UserGymProgram enrollment = new UserGymProgram();
+        enrollment.setUser(user);
+        enrollment.setProgram(program);
+        enrollment.setExpiryDate(expiryDate);
+        enrollment.setStatus(status);
+        entityManager.persist(enrollment);
+    }
+}
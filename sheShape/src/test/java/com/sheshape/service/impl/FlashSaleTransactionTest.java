@@ -0,0 +1,140 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.model.Product;
+import com.sheshape.repository.ProductRepository;
+import com.sheshape.search.ProductSearchIndex;
+import com.sheshape.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flash-sale reservations through the Spring proxy, as the controllers call them,
+ * with far fewer pooled connections than concurrent checkouts.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:flashsale;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=2000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "inventory.ledger.block-size=5"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductServiceImpl.class, InventoryLedger.class, ProductCatalogCache.class, InStockIndex.class,
+        ProductSearchIndex.class, FlashSaleTransactionTest.Metrics.class})
+class FlashSaleTransactionTest {
+
+    private static final int THREADS = 32;
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void checkoutsDontExhaustTheConnectionPool() throws Exception {
+        Long id = product(1000);
+        productService.startFlashSale(id);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int units = 0;
+                    for (int j = 0; j < 20; j++) {
+                        if (productService.updateInventory(id, 1)) {
+                            units++;
+                        }
+                    }
+                    return units;
+                }));
+            }
+            start.countDown();
+
+            int sold = 0;
+            for (Future<Integer> result : results) {
+                sold += result.get(60, TimeUnit.SECONDS);
+            }
+            assertThat(sold).isEqualTo(THREADS * 20);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        productService.endFlashSale(id);
+        assertThat(inventory(id)).isEqualTo(1000 - THREADS * 20);
+    }
+
+    @Test
+    void heldUnitsComeBackWhenTheCallersTransactionRollsBack() {
+        Long id = product(100);
+        productService.startFlashSale(id);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.reserveInventory(Map.of(id, 3));
+            assertThat(productService.updateInventory(id, 1)).isTrue();
+            status.setRollbackOnly();
+        });
+
+        productService.endFlashSale(id);
+        assertThat(inventory(id)).isEqualTo(100);
+    }
+
+    private Long product(int inventory) {
+        Product product = new Product();
+        product.setName("Resistance band " + inventory);
+        product.setPrice(new BigDecimal("14.99"));
+        product.setInventoryCount(inventory);
+        return productRepository.save(product).getId();
+    }
+
+    private int inventory(Long id) {
+        return productRepository.findInventoryCountById(id).orElseThrow();
+    }
+}
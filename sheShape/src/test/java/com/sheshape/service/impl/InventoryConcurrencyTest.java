@@ -0,0 +1,213 @@
+package com.sheshape.service.impl;
+
+import com.sheshape.dto.KeysetCursor;
+import com.sheshape.exception.BadRequestException;
+import com.sheshape.model.Product;
+import com.sheshape.repository.ProductImageRepository;
+import com.sheshape.repository.ProductRepository;
+import com.sheshape.search.ProductSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers each inventory path with 64 threads against a real (H2) database and
+ * checks that exactly the available stock is sold, never more.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventory;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=16",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryConcurrencyTest {
+
+    private static final int THREADS = 64;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private InventoryLedger ledger;
+    private InStockIndex inStockIndex;
+    private ProductServiceImpl productService;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        ProductCatalogCache catalogCache = new ProductCatalogCache(new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(1), 100, Duration.ofMinutes(1));
+        inStockIndex = new InStockIndex(productRepository, transactionManager);
+        ledger = new InventoryLedger(productRepository, catalogCache, inStockIndex, transactionManager, 8, 10);
+        productService = new ProductServiceImpl(productRepository, productImageRepository, catalogCache, inStockIndex,
+                ledger, new ProductSearchIndex(productRepository, transactionManager), transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        inStockIndex.shutdown();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void conditionalDecrementNeverOversells() throws Exception {
+        Long id = product(100);
+
+        int sold = runConcurrently(() -> {
+            int units = 0;
+            for (int i = 0; i < 10; i++) {
+                if (Boolean.TRUE.equals(transaction.execute(status -> productService.updateInventory(id, 1)))) {
+                    units++;
+                }
+            }
+            return units;
+        });
+
+        assertThat(sold).isEqualTo(100);
+        assertThat(inventory(id)).isZero();
+    }
+
+    @Test
+    void batchReserveIsAllOrNothingAndDeadlockFree() throws Exception {
+        Long first = product(100);
+        Long second = product(100);
+
+        int carts = runConcurrently(() -> {
+            int reserved = 0;
+            for (int i = 0; i < 5; i++) {
+                // Opposite insertion orders; the service must still lock in id order
+                Map<Long, Integer> cart = ThreadLocalRandom.current().nextBoolean()
+                        ? Map.of(first, 1, second, 2)
+                        : Map.of(second, 2, first, 1);
+                try {
+                    transaction.executeWithoutResult(status -> productService.reserveInventory(cart));
+                    reserved++;
+                } catch (BadRequestException e) {
+                    // Sold out
+                }
+            }
+            return reserved;
+        });
+
+        assertThat(carts).isEqualTo(50);
+        assertThat(inventory(first)).isEqualTo(50);
+        assertThat(inventory(second)).isZero();
+    }
+
+    @Test
+    void ledgerNeverOversellsAndReturnsUnsoldStock() throws Exception {
+        Long id = product(1000);
+        productService.startFlashSale(id);
+
+        int sold = runConcurrently(() -> {
+            int units = 0;
+            for (int i = 0; i < 50; i++) {
+                int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                if (productService.updateInventory(id, quantity)) {
+                    units += quantity;
+                }
+            }
+            return units;
+        });
+
+        assertThat(sold).isLessThanOrEqualTo(1000);
+        assertThat(inventory(id) + ledger.held(id)).isEqualTo(1000 - sold);
+
+        productService.endFlashSale(id);
+        assertThat(inventory(id)).isEqualTo(1000 - sold);
+    }
+
+    @Test
+    void soldOutProductLeavesTheInStockIndex() throws Exception {
+        Long soldOut = product(100);
+        Long spare = product(1000);
+        inStockIndex.rebuild();
+        assertThat(inStockIds()).containsExactly(spare, soldOut);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 2; i++) {
+                transaction.execute(status -> productService.updateInventory(soldOut, 1));
+            }
+            return 0;
+        });
+
+        // The index re-reads the row on its own thread after the last sale commits
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (inStockIds().size() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(inStockIds()).containsExactly(spare);
+    }
+
+    private List<Long> inStockIds() {
+        return inStockIndex.page(null, KeysetCursor.FIRST, 10).stream().map(KeysetCursor::id).toList();
+    }
+
+    private int runConcurrently(Callable<Integer> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(60, TimeUnit.SECONDS);
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Long product(int inventory) {
+        Product product = new Product();
+        product.setName("Resistance band " + inventory);
+        product.setPrice(new BigDecimal("14.99"));
+        product.setInventoryCount(inventory);
+        return productRepository.save(product).getId();
+    }
+
+    private int inventory(Long id) {
+        return productRepository.findInventoryCountById(id).orElseThrow();
+    }
+}
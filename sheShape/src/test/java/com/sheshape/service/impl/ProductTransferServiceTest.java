@@ -0,0 +1,189 @@
+package com.sheshape.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sheshape.dto.ImportReport;
+import com.sheshape.model.Product;
+import com.sheshape.model.ProductImage;
+import com.sheshape.repository.ProductImageRepository;
+import com.sheshape.repository.ProductRepository;
+import com.sheshape.search.ProductSearchIndex;
+import com.sheshape.service.FileStorageService;
+import com.sheshape.service.ProductTransferService.Format;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Chunks commit on their own, so the test runs outside a test transaction
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductTransferServiceTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private InStockIndex inStockIndex;
+    private InventoryLedger ledger;
+    private ProductTransferServiceImpl transferService;
+
+    @BeforeEach
+    void setUp() {
+        ProductCatalogCache catalogCache = new ProductCatalogCache(new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(1), 10, Duration.ofMinutes(1));
+        inStockIndex = new InStockIndex(productRepository, transactionManager);
+        ledger = new InventoryLedger(productRepository, catalogCache, inStockIndex, transactionManager, 1, 5);
+        transferService = new ProductTransferServiceImpl(productRepository, productImageRepository, new CdnStorage(),
+                catalogCache, inStockIndex, ledger, new ProductSearchIndex(productRepository, transactionManager),
+                entityManager, jdbcTemplate, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, 2, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        inStockIndex.shutdown();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void badRowsAreReportedWithoutLosingTheirChunk() {
+        String csv = """
+                name,price,inventoryCount,description,categories,imageKeys
+                Yoga mat,29.99,10,"Thick, non-slip
+                and washable",Yoga|Equipment,mats/front.jpg|mats/side.jpg
+                Foam roller,abc,5,,Recovery,
+                Jump rope,9.99,-1,,Cardio,
+                Kettlebell,49.00,3,"The ""classic"" 12 kg",Strength,bells/12.jpg
+                """;
+
+        ImportReport report = transferService.importProducts(Format.CSV, stream(csv));
+
+        assertThat(report.getReceived()).isEqualTo(4);
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportReport.RowError::getRow).containsExactly(2L, 3L);
+        assertThat(report.getErrors().get(0).getMessage()).isEqualTo("Invalid price: 'abc'");
+
+        Product mat = productRepository.findAll().stream()
+                .filter(product -> product.getName().equals("Yoga mat")).findFirst().orElseThrow();
+        assertThat(mat.getDescription()).isEqualTo("Thick, non-slip\nand washable");
+        List<ProductImage> images = productImageRepository.findByProductIdOrderByPositionAsc(mat.getId());
+        assertThat(images).extracting(ProductImage::getFileKey).containsExactly("mats/front.jpg", "mats/side.jpg");
+        assertThat(images).extracting(ProductImage::isMain).containsExactly(true, false);
+    }
+
+    @Test
+    void exportReimportsAsUpdates() throws Exception {
+        transferService.importProducts(Format.NDJSON, stream("""
+                {"name":"Resistance band","price":12.5,"inventoryCount":7,"categories":["Strength"],"imageKeys":["bands/red.jpg","bands/blue.jpg"]}
+                {"name":"Water bottle","description":"Holds 1, 2 or \\"3\\" litres","price":15,"inventoryCount":0,"isActive":false}
+                """));
+        // Move the main image to the second position
+        Long bandId = productRepository.findAll().stream()
+                .filter(product -> product.getName().equals("Resistance band")).findFirst().orElseThrow().getId();
+        List<ProductImage> bandImages = productImageRepository.findByProductIdOrderByPositionAsc(bandId);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productImageRepository.clearMainImage(bandId);
+            productImageRepository.markMainImage(bandId, bandImages.get(1).getId());
+        });
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        transferService.exportProducts(Format.CSV, csv);
+        ImportReport report = transferService.importProducts(Format.CSV, new ByteArrayInputStream(csv.toByteArray()));
+
+        assertThat(report.getUpdated()).isEqualTo(2);
+        assertThat(report.getCreated()).isZero();
+        assertThat(report.getFailed()).isZero();
+        assertThat(productRepository.count()).isEqualTo(2);
+        assertThat(productImageRepository.findByProductIdOrderByPositionAsc(bandId))
+                .extracting(ProductImage::getFileKey).containsExactly("bands/blue.jpg", "bands/red.jpg");
+        assertThat(productImageRepository.findByProductIdAndIsMainTrue(bandId).getFileKey()).isEqualTo("bands/blue.jpg");
+
+        Product bottle = productRepository.findAll().stream()
+                .filter(product -> product.getName().equals("Water bottle")).findFirst().orElseThrow();
+        assertThat(bottle.getDescription()).isEqualTo("Holds 1, 2 or \"3\" litres");
+        assertThat(bottle.getIsActive()).isFalse();
+        assertThat(bottle.getPrice()).isEqualByComparingTo(new BigDecimal("15.00"));
+    }
+
+    @Test
+    void flashSaleProductsAreRefusedUntouched() {
+        transferService.importProducts(Format.NDJSON, stream("""
+                {"name":"Kettlebell","price":49,"inventoryCount":20,"imageKeys":["bells/12.jpg"]}
+                """));
+        Long id = productRepository.findAll().get(0).getId();
+        ledger.track(id);
+        assertThat(ledger.tryReserve(id, 1)).isTrue();
+
+        ImportReport report = transferService.importProducts(Format.NDJSON, stream(
+                "{\"id\":" + id + ",\"name\":\"Kettlebell\",\"price\":49,\"inventoryCount\":20}\n"));
+
+        assertThat(report.getUpdated()).isZero();
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getErrors().get(0).getMessage()).contains("flash sale");
+        assertThat(productImageRepository.findByProductIdOrderByPositionAsc(id)).hasSize(1);
+
+        // The ledger's block comes back on top of the untouched row, not an imported count
+        ledger.untrack(id);
+        assertThat(productRepository.findInventoryCountById(id)).contains(19);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class CdnStorage implements FileStorageService {
+        @Override
+        public String uploadFile(MultipartFile file, String directory) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteFile(String fileKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getFileUrl(String fileKey) {
+            return "https://cdn.sheshape.com/" + fileKey;
+        }
+    }
+}
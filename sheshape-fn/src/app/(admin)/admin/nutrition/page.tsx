@@ -3,7 +3,7 @@
 
 import { useState, useEffect } from 'react';
 import Link from 'next/link';
-import { api } from '@/lib/api';
+import { api, getAllPages } from '@/lib/api';
 import { Button } from '@/components/ui/button';
 import {
   Card,
@@ -77,9 +77,9 @@ export default function AdminNutritionPage() {
     setIsLoading(true);
     setError(null);
     try {
-      const response = await api.get('/api/nutrition/plans/all');
-      setPlans(response.data);
-      setFilteredPlans(response.data);
+      const allPlans = await getAllPages<NutritionPlan>('/api/nutrition/plans/all');
+      setPlans(allPlans);
+      setFilteredPlans(allPlans);
     } catch (err) {
       console.error('Failed to fetch nutrition plans:', err);
       setError('Failed to load nutrition plans. Please try again.');
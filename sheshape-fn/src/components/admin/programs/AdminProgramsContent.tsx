@@ -43,7 +43,7 @@ import {
   SelectTrigger, 
   SelectValue 
 } from '@/components/ui/select';
-import { api } from '@/lib/api';
+import { api, getAllPages } from '@/lib/api';
 import { toast } from 'react-toastify';
 import { LoadingSpinner } from '@/components/common/LoadingSpinner';
 import { formatDate } from '@/lib/utils';
@@ -98,8 +98,7 @@ function AdminProgramsContent() {
     setError(null);
     
     try {
-      const response = await api.get('/api/gym/programs/all');
-      setPrograms(response.data);
+      setPrograms(await getAllPages<GymProgram>('/api/gym/programs/all'));
     } catch (err) {
       console.error('Error fetching programs:', err);
       setError('Failed to fetch programs. Please try again.');
@@ -14,6 +14,13 @@ import {
 import { Button } from '@/components/ui/button';
 import { Badge } from '@/components/ui/badge';
 import { Avatar, AvatarFallback, AvatarImage } from '@/components/ui/avatar';
+import {
+  Pagination,
+  PaginationContent,
+  PaginationItem,
+  PaginationNext,
+  PaginationPrevious,
+} from '@/components/ui/pagination';
 import {
   DropdownMenu,
   DropdownMenuContent,
@@ -53,8 +60,13 @@ interface UsersListProps {
   programId: number;
 }
 
+const PAGE_SIZE = 20;
+
 export function UsersList({ programId }: UsersListProps) {
   const [users, setUsers] = useState<UserGymProgram[]>([]);
+  const [page, setPage] = useState(0); // API uses 0-based pagination
+  const [totalPages, setTotalPages] = useState(0);
+  const [totalElements, setTotalElements] = useState(0);
   const [isLoading, setIsLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
   const router = useRouter();
@@ -64,8 +76,12 @@ export function UsersList({ programId }: UsersListProps) {
     const fetchUsers = async () => {
       try {
         setIsLoading(true);
-        const response = await api.get(`/api/gym/programs/${programId}/users`);
-        setUsers(response.data);
+        const response = await api.get(`/api/gym/programs/${programId}/users`, {
+          params: { expand: 'user', page, size: PAGE_SIZE },
+        });
+        setUsers(response.data.content);
+        setTotalPages(response.data.totalPages);
+        setTotalElements(response.data.totalElements);
       } catch (err) {
         console.error('Error fetching users:', err);
         setError('Failed to load enrolled users');
@@ -75,7 +91,7 @@ export function UsersList({ programId }: UsersListProps) {
     };
 
     fetchUsers();
-  }, [programId]);
+  }, [programId, page]);
 
   // Update user status
   const updateUserStatus = async (userId: number, status: string) => {
@@ -110,7 +126,7 @@ export function UsersList({ programId }: UsersListProps) {
     );
   }
 
-  if (users.length === 0) {
+  if (totalElements === 0) {
     return (
       <div className="text-center p-8 border rounded bg-neutral-50">
         <Users className="mx-auto h-8 w-8 text-neutral-400 mb-2" />
@@ -212,6 +228,31 @@ export function UsersList({ programId }: UsersListProps) {
           ))}
         </TableBody>
       </Table>
+
+      {/* Pagination */}
+      {totalPages > 1 && (
+        <div className="flex items-center justify-between border-t px-4 py-3">
+          <span className="text-sm text-neutral-500">
+            Page {page + 1} of {totalPages} ({totalElements} users)
+          </span>
+          <Pagination className="mx-0 w-auto">
+            <PaginationContent>
+              <PaginationItem>
+                <PaginationPrevious
+                  onClick={() => setPage(Math.max(0, page - 1))}
+                  className={page === 0 ? 'pointer-events-none opacity-50' : ''}
+                />
+              </PaginationItem>
+              <PaginationItem>
+                <PaginationNext
+                  onClick={() => setPage(Math.min(totalPages - 1, page + 1))}
+                  className={page === totalPages - 1 ? 'pointer-events-none opacity-50' : ''}
+                />
+              </PaginationItem>
+            </PaginationContent>
+          </Pagination>
+        </div>
+      )}
     </div>
   );
 }
\ No newline at end of file
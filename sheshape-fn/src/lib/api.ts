@@ -67,4 +67,16 @@ api.interceptors.response.use(
     
     return Promise.reject(error);
   }
-);
\ No newline at end of file
+);
+
+// Cursor-paginated listings ({ content, nextCursor }): follows nextCursor until the last page
+export async function getAllPages<T>(url: string, size = 100): Promise<T[]> {
+  const items: T[] = [];
+  let cursor: string | null = null;
+  do {
+    const response = await api.get(url, { params: cursor ? { size, cursor } : { size } });
+    items.push(...response.data.content);
+    cursor = response.data.nextCursor ?? null;
+  } while (cursor);
+  return items;
+}
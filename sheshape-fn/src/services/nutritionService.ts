@@ -1,5 +1,5 @@
 // src/services/nutritionService.ts
-import { api } from '@/lib/api';
+import { api, getAllPages } from '@/lib/api';
 
 export interface NutritionPlan {
   id: number;
@@ -52,14 +52,12 @@ export interface UserNutritionPlan {
 export const nutritionService = {
   // Get all nutrition plans (admin only)
   getAllPlans: async (): Promise<NutritionPlan[]> => {
-    const response = await api.get('/api/nutrition/plans/all');
-    return response.data;
+    return getAllPages<NutritionPlan>('/api/nutrition/plans/all');
   },
   
   // Get only active nutrition plans
   getActivePlans: async (): Promise<NutritionPlan[]> => {
-    const response = await api.get('/api/nutrition/plans');
-    return response.data;
+    return getAllPages<NutritionPlan>('/api/nutrition/plans');
   },
   
   // Get nutrition plan by ID